@@ -0,0 +1,145 @@
+package io.github.astatine202.scras.backend.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 生成合成 C 项目: files 个源文件, 每个文件 functions 个函数, 调用深度为 depth.
+ * <p>
+ * 第 k 层的函数调用 1~3 个第 k+1 层的函数 (可能在其他文件中), main 调用第 0 层的函数.
+ * 同时在项目目录旁写出 criteria.txt, 每行一个可查询的切片条件 "变量 函数 文件".
+ *
+ * <pre>
+ * java -cp benchmarks.jar io.github.astatine202.scras.backend.loadtest.CorpusGenerator \
+ *     /tmp/corpus --name demo --files 50 --functions 20 --depth 8
+ * </pre>
+ */
+public final class CorpusGenerator {
+    static final String CRITERIA = "criteria.txt";
+    static final List<String> VARIABLES = List.of("a", "b", "x", "y", "acc");
+    private static final int MAIN_CALLS = 16;
+
+    private final int files;
+    private final int functions;
+    private final int depth;
+    private final Random random;
+
+    public CorpusGenerator(int files, int functions, int depth, long seed) {
+        if (files < 1 || functions < 1 || depth < 1) {
+            throw new IllegalArgumentException("files, functions and depth must be positive");
+        }
+        this.files = files;
+        this.functions = functions;
+        this.depth = depth;
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        Path root = Path.of(options.positional(0, "output directory"));
+        String name = options.get("name", "demo");
+        CorpusGenerator generator = new CorpusGenerator(options.getInt("files", 20),
+                options.getInt("functions", 20), options.getInt("depth", 6), options.getInt("seed", 42));
+        Path projectDir = generator.generate(root, name);
+        System.out.println("Generated " + projectDir);
+    }
+
+    /** 写出 root/name 项目及 root/criteria.txt, 返回项目目录 */
+    public Path generate(Path root, String name) throws IOException {
+        Path srcDir = root.resolve(name).resolve("src");
+        Files.createDirectories(srcDir);
+        int total = files * functions;
+
+        // 函数 g 的层次为 g % depth, 各层函数均匀分布在所有文件中
+        List<List<Integer>> levels = new ArrayList<>();
+        for (int level = 0; level < depth; level++) {
+            levels.add(new ArrayList<>());
+        }
+        for (int g = 0; g < total; g++) {
+            levels.get(g % depth).add(g);
+        }
+
+        try (BufferedWriter header = Files.newBufferedWriter(srcDir.resolve("common.h"))) {
+            header.write("#ifndef COMMON_H\n#define COMMON_H\n\n");
+            for (int g = 0; g < total; g++) {
+                header.write("int " + functionName(g) + "(int a, int b);\n");
+            }
+            header.write("\n#endif\n");
+        }
+
+        try (BufferedWriter criteria = Files.newBufferedWriter(root.resolve(CRITERIA))) {
+            for (int file = 0; file < files; file++) {
+                String fileName = "src/" + fileName(file);
+                try (BufferedWriter source = Files.newBufferedWriter(srcDir.resolve(fileName(file)))) {
+                    source.write("#include \"common.h\"\n");
+                    if (file == 0) {
+                        writeMain(source, levels.get(0));
+                        criteria.write("acc main " + fileName + "\n");
+                    }
+                    for (int j = 0; j < functions; j++) {
+                        int g = file * functions + j;
+                        int level = g % depth;
+                        List<Integer> callees = level + 1 < depth ? pick(levels.get(level + 1)) : List.of();
+                        writeFunction(source, g, callees);
+                        for (String var : VARIABLES) {
+                            criteria.write(var + " " + functionName(g) + " " + fileName + "\n");
+                        }
+                    }
+                }
+            }
+        }
+        return root.resolve(name);
+    }
+
+    private List<Integer> pick(List<Integer> candidates) {
+        int count = 1 + random.nextInt(3);
+        List<Integer> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            picked.add(candidates.get(random.nextInt(candidates.size())));
+        }
+        return picked;
+    }
+
+    private void writeMain(BufferedWriter out, List<Integer> roots) throws IOException {
+        out.write("\nint main(void)\n{\n");
+        out.write("    int acc = 0;\n");
+        for (int i = 0; i < Math.min(MAIN_CALLS, roots.size()); i++) {
+            out.write("    acc += " + functionName(roots.get(i)) + "(acc, " + (i + 1) + ");\n");
+        }
+        out.write("    return acc;\n}\n");
+    }
+
+    private void writeFunction(BufferedWriter out, int g, List<Integer> callees) throws IOException {
+        int k = 1 + random.nextInt(9);
+        out.write("\nint " + functionName(g) + "(int a, int b)\n{\n");
+        out.write("    int x = a + " + k + ";\n");
+        out.write("    int y = b * " + k + ";\n");
+        out.write("    int acc = 0;\n");
+        out.write("    for (int i = 0; i < a; i++) {\n");
+        out.write("        acc += x * i;\n");
+        out.write("        if (acc > b) {\n");
+        out.write("            y = y - i;\n");
+        out.write("        }\n");
+        out.write("    }\n");
+        for (int callee : callees) {
+            out.write("    acc += " + functionName(callee) + "(x, y);\n");
+        }
+        out.write("    while (y > " + (k * 10) + ") {\n");
+        out.write("        y = y / 2;\n");
+        out.write("    }\n");
+        out.write("    return acc + y;\n}\n");
+    }
+
+    static String functionName(int g) {
+        return "fn" + g;
+    }
+
+    private static String fileName(int file) {
+        return "f" + file + ".c";
+    }
+}
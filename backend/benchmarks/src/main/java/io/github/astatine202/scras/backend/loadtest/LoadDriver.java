@@ -0,0 +1,238 @@
+package io.github.astatine202.scras.backend.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 对运行中的后端压测 /api/slice/uploadProject 和 /api/slice/sliceProject,
+ * 并发度逐级升高, 每级输出各操作的吞吐量和延迟分位数.
+ * <p>
+ * 每一级依次执行三个阶段:
+ * <ol>
+ * <li>upload: 上传 uploads 次项目, 每次得到一个新工作区</li>
+ * <li>analyze: 对每个新工作区请求切片, 轮询直到分析完成, 即首次查询的端到端延迟</li>
+ * <li>query: 在已分析的工作区上随机查询 criteria.txt 中的条件 queries 次</li>
+ * </ol>
+ *
+ * <pre>
+ * java -cp benchmarks.jar io.github.astatine202.scras.backend.loadtest.LoadDriver /tmp/corpus \
+ *     --url http://localhost:8080 --concurrency 1,2,4,8,16 --uploads 16 --queries 2000 --csv results.csv
+ * </pre>
+ * corpus 为 {@link CorpusGenerator} 的输出目录.
+ */
+public final class LoadDriver {
+    private static final Pattern WORKSPACE_ID = Pattern.compile("\"workspaceId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+    private static final String BOUNDARY = "----scras-load-test";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+    private final String url;
+    private final String projectName;
+    private final byte[] uploadBody;
+    private final List<String[]> criteria;
+    private final Duration timeout;
+
+    LoadDriver(String url, Path corpus, String projectName, Duration timeout) throws IOException {
+        this.url = url.replaceAll("/+$", "");
+        this.projectName = projectName;
+        this.uploadBody = multipart(corpus, projectName);
+        this.criteria = Files.readAllLines(corpus.resolve(CorpusGenerator.CRITERIA)).stream()
+                .filter(line -> !line.isBlank())
+                .map(line -> line.trim().split(" "))
+                .toList();
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        LoadDriver driver = new LoadDriver(options.get("url", "http://localhost:8080"),
+                Path.of(options.positional(0, "corpus directory")), options.get("name", "demo"),
+                Duration.ofSeconds(options.getInt("timeout", 600)));
+        String csv = options.get("csv", null);
+        List<Result> results = new ArrayList<>();
+        System.out.println(Result.HEADER);
+        for (int concurrency : options.getInts("concurrency", "1,2,4,8")) {
+            for (Result result : driver.level(concurrency, options.getInt("uploads", 2 * concurrency),
+                    options.getInt("queries", 500))) {
+                System.out.println(result);
+                results.add(result);
+            }
+        }
+        if (csv != null) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(csv)), true, StandardCharsets.UTF_8)) {
+                out.println("concurrency,operation,requests,errors,throughput,p50,p90,p99,max");
+                results.forEach(result -> out.println(result.csv()));
+            }
+        }
+        System.exit(0);
+    }
+
+    List<Result> level(int concurrency, int uploads, int queries) throws InterruptedException {
+        List<String> workspaces = Collections.synchronizedList(new ArrayList<>());
+        Result upload = run("upload", concurrency, uploads, i -> {
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(url + "/api/slice/uploadProject"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(uploadBody)));
+            Matcher matcher = WORKSPACE_ID.matcher(response.body());
+            if (response.statusCode() != 200 || !matcher.find()) {
+                return false;
+            }
+            workspaces.add(matcher.group(1));
+            return true;
+        });
+
+        List<String> analysed = Collections.synchronizedList(new ArrayList<>());
+        List<String> pending = List.copyOf(workspaces);
+        Result analyze = run("analyze", concurrency, pending.size(), i -> {
+            String workspaceId = pending.get(i);
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                int status = query(workspaceId, criteria.get(0)).statusCode();
+                if (status == 200) {
+                    analysed.add(workspaceId);
+                    return true;
+                }
+                if (status != 202) {
+                    return false;
+                }
+                Thread.sleep(POLL_INTERVAL);
+            }
+            return false;
+        });
+
+        if (analysed.isEmpty()) {
+            return List.of(upload, analyze);
+        }
+        List<String> targets = List.copyOf(analysed);
+        Result query = run("query", concurrency, queries, i -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String[] criterion = criteria.get(random.nextInt(criteria.size()));
+            return query(targets.get(random.nextInt(targets.size())), criterion).statusCode() == 200;
+        });
+        return List.of(upload, analyze, query);
+    }
+
+    private HttpResponse<String> query(String workspaceId, String[] criterion) throws Exception {
+        String query = "workspaceId=" + encode(workspaceId)
+                + "&projectName=" + encode(projectName)
+                + "&variable=" + encode(criterion[0])
+                + "&function=" + encode(criterion[1])
+                + "&filename=" + encode(criterion.length > 2 ? criterion[2] : "");
+        return send(HttpRequest.newBuilder(URI.create(url + "/api/slice/sliceProject?" + query)).GET());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.timeout(timeout).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        /** @return 是否成功 */
+        boolean run(int i) throws Exception;
+    }
+
+    // 固定并发度执行 count 次操作, 记录每次的延迟
+    private Result run(String name, int concurrency, int count, Operation operation) throws InterruptedException {
+        long[] latencies = new long[count];
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            pool.execute(() -> {
+                long begin = System.nanoTime();
+                try {
+                    if (!operation.run(index)) {
+                        errors.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+                latencies[index] = System.nanoTime() - begin;
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.DAYS);
+        return new Result(concurrency, name, latencies, errors.get(), System.nanoTime() - start);
+    }
+
+    // 与浏览器上传文件夹相同: 每个文件一个 "files" 部分, 文件名为 "项目名/相对路径"
+    private static byte[] multipart(Path corpus, String projectName) throws IOException {
+        Path projectDir = corpus.resolve(projectName);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(projectDir)) {
+            files = paths.filter(Files::isRegularFile).sorted().toList();
+        }
+        if (files.isEmpty()) {
+            throw new IOException("No files under " + projectDir);
+        }
+        for (Path file : files) {
+            String name = projectName + "/" + projectDir.relativize(file).toString().replace('\\', '/');
+            body.writeBytes(("--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"files\"; filename=\"" + name + "\"\r\n"
+                    + "Content-Type: text/plain\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.writeBytes(Files.readAllBytes(file));
+            body.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+        body.writeBytes(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /** 一个并发度下某一操作的统计, 延迟单位为毫秒 */
+    record Result(int concurrency, String operation, long[] latencies, int errors, long elapsedNanos) {
+        static final String HEADER = String.format("%11s %-8s %8s %6s %10s %9s %9s %9s %9s",
+                "concurrency", "op", "requests", "errors", "req/s", "p50", "p90", "p99", "max");
+
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        // 最近秩法
+        double percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%11d %-8s %8d %6d %10.1f %9.1f %9.1f %9.1f %9.1f", concurrency, operation,
+                    latencies.length, errors, throughput(), percentile(50), percentile(90), percentile(99),
+                    percentile(100));
+        }
+
+        String csv() {
+            return String.format(Locale.ROOT, "%d,%s,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f", concurrency, operation,
+                    latencies.length, errors, throughput(), percentile(50), percentile(90), percentile(99),
+                    percentile(100));
+        }
+    }
+}
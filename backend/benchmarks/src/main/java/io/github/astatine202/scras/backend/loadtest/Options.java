@@ -0,0 +1,50 @@
+package io.github.astatine202.scras.backend.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 命令行参数: "--name value" 形式的选项和其余的位置参数.
+ */
+final class Options {
+    private final Map<String, String> values = new HashMap<>();
+    private final List<String> positional = new ArrayList<>();
+
+    Options(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                values.put(args[i].substring(2), args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+    }
+
+    String positional(int index, String description) {
+        if (index >= positional.size()) {
+            throw new IllegalArgumentException("Missing argument: " + description);
+        }
+        return positional.get(index);
+    }
+
+    String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    int[] getInts(String name, String defaultValue) {
+        return Arrays.stream(get(name, defaultValue).split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim()))
+                .toArray();
+    }
+}
@@ -0,0 +1,434 @@
+package io.github.astatine202.scras.backend.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 替身工具链, 供 native 模式在没有 docker 和 llvm-slicing 镜像的环境下压测.
+ * <p>
+ * 对同样的输入产生确定的输出: clang 从 C 源码中提取函数、变量、调用和分支, 写成带
+ * {@code ; stub.*} 注释的 .ll (源文件路径放在 "!" 元数据行中, 因此 IR 缓存的路径改写照常生效);
+ * llvm-link 拼接; llvm-slicing 按变量出现的行及其调用的函数生成 Fwd 切片;
+ * opt 生成 callgraph.dot 和每个函数的 cfg.*.dot; dot 写出一个 1x1 的 PNG.
+ * 每个工具按输入规模休眠, 模拟真实耗时, 环境变量 SCRAS_STUB_SCALE 调整倍率 (0 表示不休眠).
+ *
+ * <pre>
+ * java -cp benchmarks.jar io.github.astatine202.scras.backend.loadtest.StubTool install /tmp/stub-bin
+ * # 后端: --scras.toolchain.mode=native --scras.toolchain.bin-dir=/tmp/stub-bin
+ * </pre>
+ */
+public final class StubTool {
+    private static final List<String> TOOLS = List.of("clang", "llvm-link", "llvm-link-3.3", "llvm-slicing", "opt", "dot");
+    private static final Set<String> KEYWORDS = Set.of("if", "for", "while", "switch", "return", "sizeof", "else",
+            "do", "case", "int", "char", "void", "long", "short", "unsigned", "signed", "float", "double",
+            "const", "static", "struct", "union", "enum", "extern", "volatile", "register");
+    private static final Pattern HEADER = Pattern.compile("^[A-Za-z_][\\w\\s*]*?\\b([A-Za-z_]\\w*)\\s*\\(([^;{]*)\\)\\s*\\{?\\s*$");
+    private static final Pattern IDENTIFIER = Pattern.compile("\\b[A-Za-z_]\\w*\\b");
+    private static final Pattern ASSIGNMENT = Pattern.compile("\\b([A-Za-z_]\\w*)\\s*(?:[-+*/%&|^]?=(?!=)|\\+\\+|--)");
+    private static final Pattern CALL = Pattern.compile("\\b([A-Za-z_]\\w*)\\s*\\(");
+    private static final Pattern BRANCH = Pattern.compile("\\b(if|for|while|switch)\\b");
+    private static final Pattern METADATA = Pattern.compile("^!\\d+ = metadata !\\{metadata !\"(.*)\"\\}$");
+    // 1x1 透明 PNG
+    private static final byte[] PNG = Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNkYPhfDwAChwGA60e6kgAAAABJRU5ErkJggg==");
+
+    /** 一个函数: 所在文件、起止行、变量出现的行、调用点和分支行 */
+    record Function(String name, String file, int start, int end, Map<String, SortedSet<Integer>> vars,
+            List<Map.Entry<String, Integer>> calls, List<Integer> branches) {
+    }
+
+    private StubTool() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: StubTool <install|clang|llvm-link|llvm-slicing|opt|dot> args...");
+            System.exit(2);
+        }
+        String tool = args[0];
+        List<String> rest = List.of(args).subList(1, args.length);
+        try {
+            switch (tool) {
+                case "install" -> install(Path.of(rest.get(0)));
+                case "clang" -> clang(rest);
+                case "llvm-link", "llvm-link-3.3" -> link(rest);
+                case "llvm-slicing" -> slicing(rest, System.out);
+                case "opt" -> opt(rest);
+                case "dot" -> dot(rest);
+                default -> throw new IllegalArgumentException("Unknown tool: " + tool);
+            }
+        } catch (Exception e) {
+            System.err.println(tool + ": " + e);
+            System.exit(1);
+        }
+        System.out.flush();
+    }
+
+    /** 在 binDir 下为每个工具写一个调用本类的脚本 */
+    static void install(Path binDir) throws IOException {
+        Files.createDirectories(binDir);
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath;
+        try {
+            classpath = Path.of(StubTool.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (Exception e) {
+            throw new IOException("Cannot locate benchmarks jar", e);
+        }
+        for (String tool : TOOLS) {
+            Path script = binDir.resolve(tool);
+            // 工具进程很短, 关闭分层编译的高层级以缩短启动时间
+            Files.writeString(script, "#!/bin/sh\nexec '" + java + "' -XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xshare:auto"
+                    + " -cp '" + classpath + "' " + StubTool.class.getName() + " " + tool + " \"$@\"\n");
+            Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+        System.out.println("Installed stub toolchain in " + binDir.toAbsolutePath());
+    }
+
+    // clang -emit-llvm -S -O0 -g <src> -o <out>
+    static void clang(List<String> args) throws IOException {
+        Path source = null;
+        Path output = null;
+        for (int i = 0; i < args.size(); i++) {
+            if (args.get(i).equals("-o")) {
+                output = Path.of(args.get(++i));
+            } else if (!args.get(i).startsWith("-")) {
+                source = Path.of(args.get(i));
+            }
+        }
+        if (source == null || output == null) {
+            throw new IllegalArgumentException("clang: missing source or -o");
+        }
+        List<String> lines = Files.readAllLines(source, StandardCharsets.ISO_8859_1);
+        String file = source.toAbsolutePath().normalize().toString();
+        List<Function> functions = parseSource(file, lines);
+        delay(40 + lines.size() * 0.05);
+
+        try (BufferedWriter out = Files.newBufferedWriter(output)) {
+            out.write("; ModuleID = '" + source + "'\n");
+            out.write("!0 = metadata !{metadata !\"" + file + "\"}\n");
+            for (Function function : functions) {
+                out.write("\ndefine i32 @" + function.name() + "() #0 {\n");
+                out.write("; stub.fn " + function.name() + " " + function.start() + " " + function.end() + "\n");
+                for (Map.Entry<String, SortedSet<Integer>> var : function.vars().entrySet()) {
+                    StringBuilder line = new StringBuilder("; stub.var ").append(function.name()).append(' ')
+                            .append(var.getKey());
+                    var.getValue().forEach(l -> line.append(' ').append(l));
+                    out.write(line.append('\n').toString());
+                }
+                for (Map.Entry<String, Integer> call : function.calls()) {
+                    out.write("; stub.call " + function.name() + " " + call.getKey() + " " + call.getValue() + "\n");
+                }
+                for (int branch : function.branches()) {
+                    out.write("; stub.branch " + function.name() + " " + branch + "\n");
+                }
+                out.write("  ret i32 0\n}\n");
+            }
+        }
+    }
+
+    // 按行扫描: 顶层的 "类型 名字(参数)" 之后进入函数体, 花括号回到 0 层时函数结束
+    static List<Function> parseSource(String file, List<String> lines) {
+        List<Function> functions = new ArrayList<>();
+        int depth = 0;
+        String pendingName = null;
+        String pendingParams = null;
+        int pendingLine = 0;
+        int bodyStart = -1;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = stripComment(lines.get(i));
+            String trimmed = line.trim();
+            if (depth == 0 && !trimmed.startsWith("#")) {
+                Matcher header = HEADER.matcher(trimmed);
+                if (header.matches() && !KEYWORDS.contains(header.group(1))) {
+                    pendingName = header.group(1);
+                    pendingParams = header.group(2);
+                    pendingLine = i + 1;
+                } else if (trimmed.endsWith(";")) {
+                    pendingName = null;
+                }
+            }
+            for (char c : line.toCharArray()) {
+                if (c == '{') {
+                    if (depth++ == 0 && pendingName != null) {
+                        bodyStart = i;
+                    }
+                } else if (c == '}' && depth > 0 && --depth == 0 && bodyStart >= 0) {
+                    functions.add(function(file, pendingName, pendingParams, pendingLine, lines, bodyStart, i));
+                    pendingName = null;
+                    bodyStart = -1;
+                }
+            }
+        }
+        return functions;
+    }
+
+    private static Function function(String file, String name, String params, int headerLine,
+            List<String> lines, int bodyStart, int bodyEnd) {
+        Map<String, SortedSet<Integer>> vars = new LinkedHashMap<>();
+        for (String param : params.split(",")) {
+            String var = lastIdentifier(param);
+            if (var != null && !KEYWORDS.contains(var)) {
+                vars.put(var, new TreeSet<>(List.of(headerLine)));
+            }
+        }
+        for (int i = bodyStart; i <= bodyEnd; i++) {
+            Matcher assignment = ASSIGNMENT.matcher(stripComment(lines.get(i)));
+            while (assignment.find()) {
+                if (!KEYWORDS.contains(assignment.group(1))) {
+                    vars.computeIfAbsent(assignment.group(1), k -> new TreeSet<>());
+                }
+            }
+        }
+
+        List<Map.Entry<String, Integer>> calls = new ArrayList<>();
+        List<Integer> branches = new ArrayList<>();
+        for (int i = bodyStart; i <= bodyEnd; i++) {
+            String line = stripComment(lines.get(i));
+            int lineNumber = i + 1;
+            Matcher identifier = IDENTIFIER.matcher(line);
+            while (identifier.find()) {
+                SortedSet<Integer> uses = vars.get(identifier.group());
+                if (uses != null) {
+                    uses.add(lineNumber);
+                }
+            }
+            Matcher call = CALL.matcher(line);
+            while (call.find()) {
+                if (!KEYWORDS.contains(call.group(1))) {
+                    calls.add(Map.entry(call.group(1), lineNumber));
+                }
+            }
+            if (BRANCH.matcher(line).find()) {
+                branches.add(lineNumber);
+            }
+        }
+        return new Function(name, file, headerLine, bodyEnd + 1, vars, calls, branches);
+    }
+
+    private static String lastIdentifier(String text) {
+        Matcher matcher = IDENTIFIER.matcher(text);
+        String last = null;
+        while (matcher.find()) {
+            last = matcher.group();
+        }
+        return last;
+    }
+
+    private static String stripComment(String line) {
+        int comment = line.indexOf("//");
+        return comment < 0 ? line : line.substring(0, comment);
+    }
+
+    // llvm-link -S <in.ll>... -o <out>
+    static void link(List<String> args) throws IOException {
+        Path output = null;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.size(); i++) {
+            if (args.get(i).equals("-o")) {
+                output = Path.of(args.get(++i));
+            } else if (!args.get(i).startsWith("-")) {
+                inputs.add(Path.of(args.get(i)));
+            }
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("llvm-link: missing -o");
+        }
+        delay(5 + inputs.size() * 0.5);
+        try (BufferedWriter out = Files.newBufferedWriter(output)) {
+            for (Path input : inputs) {
+                for (String line : Files.readAllLines(input)) {
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+        }
+    }
+
+    /** 读取 stub .ll (可以是多个文件拼接的结果), 源文件取最近的 "!" 元数据行 */
+    static Map<String, Function> readModule(Path ll) throws IOException {
+        Map<String, Function> functions = new LinkedHashMap<>();
+        String file = "";
+        Map<String, Map<String, SortedSet<Integer>>> vars = new HashMap<>();
+        Map<String, List<Map.Entry<String, Integer>>> calls = new HashMap<>();
+        Map<String, List<Integer>> branches = new HashMap<>();
+        Map<String, int[]> ranges = new LinkedHashMap<>();
+        Map<String, String> files = new HashMap<>();
+        for (String line : Files.readAllLines(ll)) {
+            Matcher metadata = METADATA.matcher(line);
+            if (metadata.matches()) {
+                file = metadata.group(1);
+                continue;
+            }
+            if (!line.startsWith("; stub.")) {
+                continue;
+            }
+            String[] parts = line.substring("; stub.".length()).split(" ");
+            String name = parts[1];
+            switch (parts[0]) {
+                case "fn" -> {
+                    ranges.put(name, new int[] {Integer.parseInt(parts[2]), Integer.parseInt(parts[3])});
+                    files.put(name, file);
+                }
+                case "var" -> {
+                    SortedSet<Integer> lines = new TreeSet<>();
+                    for (int i = 3; i < parts.length; i++) {
+                        lines.add(Integer.parseInt(parts[i]));
+                    }
+                    vars.computeIfAbsent(name, k -> new LinkedHashMap<>()).put(parts[2], lines);
+                }
+                case "call" -> calls.computeIfAbsent(name, k -> new ArrayList<>())
+                        .add(Map.entry(parts[2], Integer.parseInt(parts[3])));
+                case "branch" -> branches.computeIfAbsent(name, k -> new ArrayList<>())
+                        .add(Integer.parseInt(parts[2]));
+                default -> {
+                }
+            }
+        }
+        ranges.forEach((name, range) -> functions.put(name, new Function(name, files.get(name), range[0], range[1],
+                vars.getOrDefault(name, Map.of()), calls.getOrDefault(name, List.of()),
+                branches.getOrDefault(name, List.of()))));
+        return functions;
+    }
+
+    // llvm-slicing <ll> -d Fwd: 变量出现的行, 加上以该变量为实参的调用所到达函数的全部行
+    static void slicing(List<String> args, PrintStream out) throws IOException {
+        Map<String, Function> functions = readModule(Path.of(args.get(0)));
+        delay(20 + functions.size() * 0.5);
+        StringBuilder line = new StringBuilder();
+        for (Function function : functions.values()) {
+            for (Map.Entry<String, SortedSet<Integer>> var : function.vars().entrySet()) {
+                Map<String, SortedSet<Integer>> slice = new LinkedHashMap<>();
+                slice.computeIfAbsent(function.file(), k -> new TreeSet<>()).addAll(var.getValue());
+                for (Map.Entry<String, Integer> call : function.calls()) {
+                    Function callee = functions.get(call.getKey());
+                    if (callee != null && var.getValue().contains(call.getValue())) {
+                        SortedSet<Integer> lines = slice.computeIfAbsent(callee.file(), k -> new TreeSet<>());
+                        for (int l = callee.start(); l <= callee.end(); l++) {
+                            lines.add(l);
+                        }
+                    }
+                }
+                line.setLength(0);
+                line.append(var.getKey()).append('@').append(function.name()).append(" {");
+                boolean first = true;
+                for (Map.Entry<String, SortedSet<Integer>> file : slice.entrySet()) {
+                    line.append(first ? "\"" : ", \"").append(file.getKey()).append(": [");
+                    first = false;
+                    boolean firstLine = true;
+                    for (int l : file.getValue()) {
+                        line.append(firstLine ? "" : ", ").append(l);
+                        firstLine = false;
+                    }
+                    line.append("]\"");
+                }
+                out.println(line.append('}'));
+            }
+        }
+    }
+
+    // opt -dot-callgraph <ll> -disable-output / opt -dot-cfg <ll> -disable-output, 输出到当前目录
+    static void opt(List<String> args) throws IOException {
+        String pass = args.stream().filter(a -> a.startsWith("-dot-")).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("opt: only -dot-callgraph / -dot-cfg supported"));
+        Path ll = args.stream().filter(a -> !a.startsWith("-")).map(Path::of).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("opt: missing input"));
+        Map<String, Function> functions = readModule(ll);
+        delay(10 + functions.size() * 0.1);
+        Path dir = Path.of("").toAbsolutePath();
+        if (pass.equals("-dot-callgraph")) {
+            writeCallGraph(dir.resolve("callgraph.dot"), functions);
+        } else if (pass.equals("-dot-cfg")) {
+            for (Function function : functions.values()) {
+                writeCfg(dir.resolve("cfg." + function.name() + ".dot"), function);
+            }
+        } else {
+            throw new IllegalArgumentException("opt: unsupported pass " + pass);
+        }
+    }
+
+    private static void writeCallGraph(Path target, Map<String, Function> functions) throws IOException {
+        Map<String, String> ids = new HashMap<>();
+        functions.keySet().forEach(name -> ids.put(name, nodeId(ids.size() + 1)));
+        try (BufferedWriter out = Files.newBufferedWriter(target)) {
+            out.write("digraph \"Call graph\" {\n\tlabel=\"Call graph\";\n\n");
+            out.write("\t" + nodeId(0) + " [shape=record,label=\"{external node}\"];\n");
+            for (Function function : functions.values()) {
+                String id = ids.get(function.name());
+                out.write("\t" + id + " [shape=record,label=\"{" + function.name() + "}\"];\n");
+                out.write("\t" + nodeId(0) + " -> " + id + ";\n");
+            }
+            for (Function function : functions.values()) {
+                for (Map.Entry<String, Integer> call : function.calls()) {
+                    String callee = ids.get(call.getKey());
+                    if (callee != null) {
+                        out.write("\t" + ids.get(function.name()) + " -> " + callee + ";\n");
+                    }
+                }
+            }
+            out.write("}\n");
+        }
+    }
+
+    // 每个分支两个基本块, 外加一条跳过分支体的边, 因此 McCabe 复杂度为分支数 + 1
+    private static void writeCfg(Path target, Function function) throws IOException {
+        int branches = function.branches().size();
+        try (BufferedWriter out = Files.newBufferedWriter(target)) {
+            out.write("digraph \"CFG for '" + function.name() + "' function\" {\n");
+            out.write("\tlabel=\"CFG for '" + function.name() + "' function\";\n\n");
+            for (int b = 0; b <= 2 * branches; b++) {
+                out.write("\t" + nodeId(b) + " [shape=record,label=\"{%" + b + ":\\l}\"];\n");
+                if (b < 2 * branches) {
+                    out.write("\t" + nodeId(b) + ":s0 -> " + nodeId(b + 1) + ";\n");
+                }
+                if (b % 2 == 0 && b + 2 <= 2 * branches) {
+                    out.write("\t" + nodeId(b) + ":s1 -> " + nodeId(b + 2) + ";\n");
+                }
+            }
+            out.write("}\n");
+        }
+    }
+
+    // dot -Tpng <in.dot> -o <out.png>
+    static void dot(List<String> args) throws IOException {
+        int output = args.indexOf("-o");
+        if (output < 0 || output + 1 >= args.size()) {
+            throw new IllegalArgumentException("dot: missing -o");
+        }
+        Path input = args.stream().filter(a -> a.endsWith(".dot")).map(Path::of).findFirst().orElse(null);
+        long nodes = 0;
+        if (input != null) {
+            try (var lines = Files.lines(input)) {
+                nodes = lines.filter(l -> l.contains("label=")).count();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        delay(30 + nodes * 0.2);
+        Files.write(Path.of(args.get(output + 1)), PNG);
+    }
+
+    private static String nodeId(int i) {
+        return "Node0x" + Integer.toHexString(0x100000 + i);
+    }
+
+    private static void delay(double millis) {
+        String scale = System.getenv("SCRAS_STUB_SCALE");
+        long scaled = Math.round(millis * (scale == null ? 1.0 : Double.parseDouble(scale)));
+        if (scaled > 0) {
+            try {
+                Thread.sleep(scaled);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
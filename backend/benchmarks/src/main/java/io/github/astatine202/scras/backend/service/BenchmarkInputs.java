@@ -0,0 +1,154 @@
+package io.github.astatine202.scras.backend.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * 按 llvm-slicing / opt 的输出格式生成基准测试输入. 固定随机种子, 同样的参数得到同样的文件.
+ */
+final class BenchmarkInputs {
+    static final String PROJECT = "demo";
+    private static final long SEED = 42;
+
+    // 每个函数中的切片条件数, 每个源文件中的函数数
+    private static final int VARS_PER_FUNCTION = 20;
+    private static final int FUNCTIONS_PER_FILE = 30;
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Fwd 输出, 每行一个条件: {@code v3@f12 {"/w/demo/src/f0.c: [3, 5, 12]", ...}}.
+     * 项目模式下切片跨越 1~4 个源文件, 单文件模式下只有一个文件.
+     */
+    static void fwd(Path target, int lines, boolean project) throws IOException {
+        Random random = new Random(SEED);
+        int sourceFiles = Math.max(1, lines / (VARS_PER_FUNCTION * FUNCTIONS_PER_FILE));
+        try (BufferedWriter writer = Files.newBufferedWriter(target)) {
+            StringBuilder line = new StringBuilder(256);
+            for (int i = 0; i < lines; i++) {
+                int function = i / VARS_PER_FUNCTION;
+                int home = function / FUNCTIONS_PER_FILE;
+                line.setLength(0);
+                line.append('v').append(i % VARS_PER_FUNCTION).append("@f").append(function).append(" {");
+                int files = project ? 1 + random.nextInt(4) : 1;
+                for (int f = 0; f < files; f++) {
+                    int file = f == 0 ? home : random.nextInt(sourceFiles);
+                    line.append(f == 0 ? "\"" : ", \"");
+                    line.append(project ? "/w/input/" + PROJECT + "/src/f" + file + ".c" : "/w/input/main.c");
+                    line.append(": [");
+                    int base = 1 + (function % FUNCTIONS_PER_FILE) * 40;
+                    int count = 1 + random.nextInt(f == 0 ? 24 : 6);
+                    for (int l = 0; l < count; l++) {
+                        line.append(l == 0 ? "" : ", ").append(base + random.nextInt(40));
+                    }
+                    line.append("]\"");
+                }
+                line.append('}');
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * 调用图的边 (from, to). random: 多数调用指向编号更大的函数, 少量回边形成递归环;
+     * chain: 一条长调用链, 用于考察极端深度.
+     */
+    static int[][] callEdges(int nodes, String shape) {
+        if (shape.equals("chain")) {
+            int[][] edges = new int[Math.max(0, nodes - 1)][];
+            for (int i = 0; i + 1 < nodes; i++) {
+                edges[i] = new int[] {i, i + 1};
+            }
+            return edges;
+        }
+        Random random = new Random(SEED);
+        int[][] edges = new int[nodes * 4][];
+        int count = 0;
+        for (int from = 0; from < nodes; from++) {
+            int callees = random.nextInt(8);
+            for (int c = 0; c < callees && count < edges.length; c++) {
+                int to = random.nextInt(50) == 0
+                        ? random.nextInt(from + 1)
+                        : Math.min(nodes - 1, from + 1 + random.nextInt(Math.max(1, nodes / 100)));
+                edges[count++] = new int[] {from, to};
+            }
+        }
+        return Arrays.copyOf(edges, count);
+    }
+
+    static CallGraph callGraph(int nodes, String shape) {
+        CallGraph.Builder builder = CallGraph.builder();
+        for (int i = 0; i < nodes; i++) {
+            builder.node(nodeId(i));
+        }
+        for (int[] edge : callEdges(nodes, shape)) {
+            builder.addEdge(edge[0], edge[1]);
+        }
+        return builder.build();
+    }
+
+    /** opt -dot-callgraph 格式的 callgraph.dot */
+    static void callGraphDot(Path target, int nodes, String shape) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(target)) {
+            writer.write("digraph \"Call graph\" {\n\tlabel=\"Call graph\";\n\n");
+            writer.write("\tNode0x0 [shape=record,label=\"{external node}\"];\n");
+            for (int i = 0; i < nodes; i++) {
+                writer.write("\t" + nodeId(i) + " [shape=record,label=\"{f" + i + "}\"];\n");
+            }
+            for (int[] edge : callEdges(nodes, shape)) {
+                writer.write("\t" + nodeId(edge[0]) + " -> " + nodeId(edge[1]) + ";\n");
+            }
+            writer.write("}\n");
+        }
+    }
+
+    /** opt -dot-cfg 格式的 cfg.f<i>.dot, 每个函数 2~maxBlocks 个基本块 */
+    static void cfgDir(Path dir, int functions, int maxBlocks) throws IOException {
+        Files.createDirectories(dir);
+        Random random = new Random(SEED);
+        StringBuilder dot = new StringBuilder();
+        for (int f = 0; f < functions; f++) {
+            int blocks = 2 + random.nextInt(Math.max(1, maxBlocks - 1));
+            dot.setLength(0);
+            dot.append("digraph \"CFG for 'f").append(f).append("' function\" {\n");
+            dot.append("\tlabel=\"CFG for 'f").append(f).append("' function\";\n\n");
+            for (int b = 0; b < blocks; b++) {
+                dot.append('\t').append(nodeId(b)).append(" [shape=record,label=\"{%").append(b)
+                        .append(":\\l  %x = load i32* %a, align 4\\l  br label %").append(b + 1)
+                        .append("\\l}\"];\n");
+                if (b + 1 < blocks) {
+                    dot.append('\t').append(nodeId(b)).append(":s0 -> ").append(nodeId(b + 1)).append(";\n");
+                }
+                if (b > 0 && random.nextInt(4) == 0) {
+                    dot.append('\t').append(nodeId(b)).append(":s1 -> ")
+                            .append(nodeId(random.nextInt(blocks))).append(";\n");
+                }
+            }
+            dot.append("}\n");
+            Files.writeString(dir.resolve("cfg.f" + f + ".dot"), dot);
+        }
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static String nodeId(int i) {
+        return "Node0x" + Integer.toHexString(0x1000 + i);
+    }
+}
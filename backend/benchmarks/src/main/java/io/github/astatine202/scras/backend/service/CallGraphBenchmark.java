@@ -0,0 +1,36 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用图深度计算 (原 calculateDepth, 现为 CallGraph.depths).
+ * chain 为一条与节点数等长的调用链, 检验深度计算不依赖递归栈.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CallGraphBenchmark {
+
+    @Param({"5000", "50000", "500000"})
+    int nodes;
+
+    @Param({"random", "chain"})
+    String shape;
+
+    private CallGraph callGraph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        callGraph = BenchmarkInputs.callGraph(nodes, shape);
+    }
+
+    @Benchmark
+    public int[] calculateDepth() {
+        return callGraph.depths();
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * callgraph.dot 的解析与建图 (dotParser), 以及 cfg 目录的 McCabe 复杂度计算.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DotParserBenchmark {
+
+    // 调用图节点数, cfg 目录中的函数数与之相同
+    @Param({"5000", "50000"})
+    int nodes;
+
+    private Path dir;
+    private Path dotPath;
+    private Path cfgDir;
+    private CallGraphService callGraphService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("scras-bench");
+        dotPath = dir.resolve("callgraph.dot");
+        cfgDir = dir.resolve("cfg");
+        BenchmarkInputs.callGraphDot(dotPath, nodes, "random");
+        BenchmarkInputs.cfgDir(cfgDir, nodes, 64);
+        // calMcCabeComplexity 不使用工具链和指标
+        callGraphService = new CallGraphService(null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkInputs.delete(dir);
+    }
+
+    @Benchmark
+    public CallGraph dotParser() throws IOException {
+        Map<String, String> labels = new LinkedHashMap<>();
+        return CallGraphService.readCallGraph(dotPath, labels);
+    }
+
+    @Benchmark
+    public Map<String, Integer> calMcCabeComplexity() {
+        return callGraphService.calMcCabeComplexity(cfgDir);
+    }
+}
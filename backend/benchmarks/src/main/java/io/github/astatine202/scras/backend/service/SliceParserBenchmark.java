@@ -0,0 +1,62 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fwd 输出的解析 (SliceIndex.parse, 单文件与项目两种模式) 以及解析结果写入切片存储 (fwdParser).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SliceParserBenchmark {
+
+    // 10 万行约为中型项目, 200 万行对应大型项目的极端情况
+    @Param({"100000", "2000000"})
+    int lines;
+
+    private Path dir;
+    private Path fileFwd;
+    private Path projectFwd;
+    private SliceIndex projectIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("scras-bench");
+        fileFwd = dir.resolve("file_Fwd.txt");
+        projectFwd = dir.resolve("project_Fwd.txt");
+        BenchmarkInputs.fwd(fileFwd, lines, false);
+        BenchmarkInputs.fwd(projectFwd, lines, true);
+        projectIndex = SliceIndex.parse(projectFwd, BenchmarkInputs.PROJECT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkInputs.delete(dir);
+    }
+
+    @Benchmark
+    public SliceIndex parseFile() throws IOException {
+        return SliceIndex.parse(fileFwd, null);
+    }
+
+    @Benchmark
+    public SliceIndex parseProject() throws IOException {
+        return SliceIndex.parse(projectFwd, BenchmarkInputs.PROJECT);
+    }
+
+    // 与 SlicingService.fwdParser 相同: 写入二进制存储后映射打开
+    @Benchmark
+    public SliceStore fwdParser() throws IOException {
+        Path slices = dir.resolve("slices.bin");
+        SliceStore.write(projectIndex, slices);
+        return SliceStore.open(slices);
+    }
+}
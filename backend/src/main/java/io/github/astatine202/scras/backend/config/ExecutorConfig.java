@@ -0,0 +1,54 @@
+package io.github.astatine202.scras.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    // 编译线程池, 并发度与 CPU 核数一致
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService compileExecutor(MeterRegistry registry) {
+        return monitored(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                namedThreadFactory("compile-")), "compile", registry);
+    }
+
+    // 上传后扫描项目文件 (行数、哈希) 的线程池
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService ingestExecutor(MeterRegistry registry) {
+        return monitored(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                namedThreadFactory("ingest-")), "ingest", registry);
+    }
+
+    // 分析任务线程池, 限制同时运行的分析流水线数
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService analysisExecutor(@Value("${scras.analysis.concurrency:2}") int concurrency,
+            MeterRegistry registry) {
+        return monitored(Executors.newFixedThreadPool(concurrency, namedThreadFactory("analysis-")),
+                "analysis", registry);
+    }
+
+    // 导出排队数、活动线程数等 (executor.queued{name=...})
+    private static ExecutorService monitored(ExecutorService executor, String name, MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(registry);
+        return executor;
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
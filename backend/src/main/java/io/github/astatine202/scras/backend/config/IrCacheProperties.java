@@ -0,0 +1,21 @@
+package io.github.astatine202.scras.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Data
+@ConfigurationProperties(prefix = "scras.cache.ir")
+public class IrCacheProperties {
+
+    private boolean enabled = true;
+
+    // 缓存目录, 不在 temp 下, 因此不会被 cleanTempDirectories 清除
+    private Path dir = Paths.get("cache", "ir");
+
+    // 超出后按最近最少使用淘汰
+    private DataSize maxSize = DataSize.ofGigabytes(2);
+}
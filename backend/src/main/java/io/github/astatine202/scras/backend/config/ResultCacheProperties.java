@@ -0,0 +1,24 @@
+package io.github.astatine202.scras.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Data
+@ConfigurationProperties(prefix = "scras.cache.result")
+public class ResultCacheProperties {
+
+    private boolean enabled = true;
+
+    // 磁盘层目录, 与 IR 缓存一样不在 temp 下, 重启后仍然有效
+    private Path dir = Paths.get("cache", "results");
+
+    // 磁盘层总大小, 超出后按最近最少使用淘汰
+    private DataSize maxSize = DataSize.ofGigabytes(4);
+
+    // 内存层中已打开的切片存储和反向索引的总权重 (存储文件大小 + 索引占用)
+    private DataSize memoryMaxSize = DataSize.ofMegabytes(256);
+}
@@ -0,0 +1,22 @@
+package io.github.astatine202.scras.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 函数风险评分中各指标的权重. 每个指标先按所有函数中的最大值归一化到 [0, 1], 再加权求和.
+ */
+@Data
+@ConfigurationProperties(prefix = "scras.risk")
+public class RiskProperties {
+
+    private double depth = 1.0;
+
+    private double callCount = 1.0;
+
+    private double fanOut = 1.0;
+
+    private double mccabe = 1.0;
+
+    private double sliceSize = 1.0;
+}
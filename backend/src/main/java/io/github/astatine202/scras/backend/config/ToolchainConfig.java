@@ -0,0 +1,61 @@
+package io.github.astatine202.scras.backend.config;
+
+import io.github.astatine202.scras.backend.toolchain.DockerToolchainExecutor;
+import io.github.astatine202.scras.backend.toolchain.MeteredToolchainExecutor;
+import io.github.astatine202.scras.backend.toolchain.NativeToolchainExecutor;
+import io.github.astatine202.scras.backend.toolchain.PooledDockerToolchainExecutor;
+import io.github.astatine202.scras.backend.toolchain.RemoteToolchainExecutor;
+import io.github.astatine202.scras.backend.toolchain.ToolchainExecutor;
+import io.github.astatine202.scras.backend.toolchain.WorkerCoordinator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+@EnableConfigurationProperties({ToolchainProperties.class, WorkerProperties.class})
+public class ToolchainConfig {
+
+    // 实际执行后端, 由容器管理其生命周期 (如常驻容器池的启动与停止)
+    @Bean
+    public ToolchainExecutor toolchainBackend(ToolchainProperties properties,
+            WorkerProperties workerProperties, ObjectProvider<WorkerCoordinator> coordinator) {
+        if (properties.getMode() == ToolchainProperties.Mode.REMOTE) {
+            return new RemoteToolchainExecutor(properties, create(properties.getWorkerMode(), properties),
+                    workerProperties, coordinator.getObject());
+        }
+        return create(properties.getMode(), properties);
+    }
+
+    // 协调节点: 内嵌的任务队列, worker 通过 /api/workers 注册和拉取任务
+    @Bean
+    @ConditionalOnProperty(name = "scras.toolchain.mode", havingValue = "remote")
+    public WorkerCoordinator workerCoordinator(ToolchainProperties properties, WorkerProperties workerProperties) {
+        // 任务中含源码路径, 结果决定分析输出; 不允许未鉴权的 worker 接入
+        if (workerProperties.getToken() == null || workerProperties.getToken().isBlank()) {
+            throw new IllegalStateException("scras.worker.token must be set when scras.toolchain.mode=remote");
+        }
+        return new WorkerCoordinator(workerProperties, create(properties.getWorkerMode(), properties).version());
+    }
+
+    @Bean
+    @Primary
+    public ToolchainExecutor toolchainExecutor(@Qualifier("toolchainBackend") ToolchainExecutor backend,
+            ToolchainProperties properties, MeterRegistry registry) {
+        return new MeteredToolchainExecutor(backend, registry, properties.getMode().name().toLowerCase());
+    }
+
+    /** 按执行方式构造后端; worker 进程也用它创建本地执行后端 */
+    public static ToolchainExecutor create(ToolchainProperties.Mode mode, ToolchainProperties properties) {
+        return switch (mode) {
+            case DOCKER -> new DockerToolchainExecutor(properties);
+            case POOL -> new PooledDockerToolchainExecutor(properties);
+            case NATIVE -> new NativeToolchainExecutor(properties);
+            case REMOTE -> throw new IllegalArgumentException("scras.toolchain.worker-mode cannot be remote");
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.astatine202.scras.backend.config;
+
+import io.github.astatine202.scras.backend.toolchain.IrFormat;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "scras.toolchain")
+public class ToolchainProperties {
+
+    public enum Mode {
+        DOCKER, // 每次调用启动一个新容器
+        POOL, // 常驻容器池 + docker exec
+        NATIVE, // 直接调用宿主机上的工具
+        REMOTE // 分派给独立的 worker 进程执行, 见 scras.worker.*
+    }
+
+    private Mode mode = Mode.DOCKER;
+
+    // REMOTE 模式下 worker 使用的执行方式, 决定参数中的路径形式和缓存键中的工具链标识
+    private Mode workerMode = Mode.DOCKER;
+
+    private String image = "nuptzyz/llvm-slicing";
+
+    // 流水线各阶段之间的 IR 格式, 默认文本; bitcode 需显式开启, 此时文本 IR 只在调试接口请求时由 llvm-dis 生成
+    private IrFormat irFormat = IrFormat.TEXT;
+
+    // 挂载 / 解析相对路径的根目录, 默认为进程工作目录
+    private Path root = Paths.get("");
+
+    // POOL 模式下的常驻容器数
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+
+    // NATIVE 模式下的可执行文件目录, 为空时从 PATH 查找
+    private Path binDir;
+
+    // 逻辑工具名 -> 可执行文件名
+    private Map<String, String> binaries = new HashMap<>(Map.of(
+            "llvm-link", "llvm-link-3.3",
+            "llvm-dis", "llvm-dis-3.3"));
+
+    // 单次工具调用的时限, 超时后终止进程; 0 表示不限时
+    private Duration timeout = Duration.ofMinutes(30);
+
+    // 按逻辑工具名覆盖时限, 如 timeouts[llvm-slicing]=2h
+    private Map<String, Duration> timeouts = new HashMap<>();
+
+    // 每个工具进程的内存上限; DOCKER / POOL 为容器的 --memory, NATIVE 通过 prlimit 限制地址空间
+    private DataSize memoryLimit;
+
+    // DOCKER / POOL 模式下容器可用的 CPU 数 (--cpus)
+    private Double cpus;
+
+    // 为错误日志捕获的 stderr 只保留末尾这么多字节
+    private DataSize maxCapturedOutput = DataSize.ofKilobytes(64);
+}
@@ -0,0 +1,29 @@
+package io.github.astatine202.scras.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * scras.toolchain.mode=remote 时协调节点一侧的设置.
+ */
+@Data
+@ConfigurationProperties(prefix = "scras.worker")
+public class WorkerProperties {
+
+    // worker 请求需携带的 X-Worker-Token; remote 模式下必须配置, 否则启动失败
+    private String token;
+
+    // 超过这么久没有心跳的 worker 视为失联, 其正在执行的任务重新排队
+    private Duration heartbeatTimeout = Duration.ofSeconds(30);
+
+    // 单个任务最多分派的次数 (worker 失联后重试)
+    private int maxAttempts = 3;
+
+    // worker 拉取任务时最长等待时间
+    private Duration pollWait = Duration.ofSeconds(20);
+
+    // 等待任务结果时在工具超时之外额外留出的时间 (排队和重试), 超过后取消任务并按超时处理
+    private Duration resultGrace = Duration.ofMinutes(10);
+}
@@ -0,0 +1,77 @@
+package io.github.astatine202.scras.backend.controller;
+
+import io.github.astatine202.scras.backend.service.AnalysisJob;
+import io.github.astatine202.scras.backend.service.AnalysisJobService;
+import io.github.astatine202.scras.backend.service.Workspace;
+import io.github.astatine202.scras.backend.service.WorkspaceService;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/analysis")
+public class AnalysisController {
+    private static final long SSE_TIMEOUT = 30 * 60 * 1000L;
+
+    private final AnalysisJobService jobService;
+    private final WorkspaceService workspaceService;
+
+    // 提交分析任务, projectName 与 filename 二选一
+    @PostMapping
+    public ResponseEntity<AnalysisJob> submit(
+            @RequestParam String workspaceId,
+            @RequestParam(required = false) String projectName,
+            @RequestParam(required = false) String filename) {
+        if ((projectName == null) == (filename == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            Workspace workspace = workspaceService.get(workspaceId);
+            AnalysisJob job = projectName != null
+                    ? jobService.submit(workspace, projectName, true)
+                    : jobService.submit(workspace, filename, false);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (SecurityException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<AnalysisJob> status(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(jobService.get(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // 以 SSE 推送各阶段进度
+    @GetMapping("/{jobId}/events")
+    public ResponseEntity<SseEmitter> events(@PathVariable String jobId) {
+        try {
+            AnalysisJob job = jobService.get(jobId);
+            SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
+            job.subscribe(emitter);
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<AnalysisJob> cancel(@PathVariable String jobId) {
+        try {
+            AnalysisJob job = jobService.get(jobId);
+            job.cancel();
+            return ResponseEntity.ok(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.astatine202.scras.backend.controller;
+
+import io.github.astatine202.scras.backend.model.NodeInfo;
+import io.github.astatine202.scras.backend.model.RiskPage;
+import io.github.astatine202.scras.backend.service.CallGraphService;
+import io.github.astatine202.scras.backend.service.RiskRanking;
+import io.github.astatine202.scras.backend.service.RiskService;
+import io.github.astatine202.scras.backend.service.SlicingService;
+import io.github.astatine202.scras.backend.service.Workspace;
+import io.github.astatine202.scras.backend.service.WorkspaceService;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 调用图指标、函数风险排名与可视化. 相关产物在首次请求时才生成, 之后直接复用;
+ * 分析尚未完成的工作区返回 409.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/callgraph")
+public class CallGraphController {
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final WorkspaceService workspaceService;
+    private final SlicingService slicingService;
+    private final CallGraphService callGraphService;
+    private final RiskService riskService;
+
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, NodeInfo>> metrics(@RequestParam String workspaceId) {
+        return withAnalyzed(workspaceId, workspace -> ResponseEntity.ok(callGraphService.metrics(workspace)));
+    }
+
+    // 按风险分数从高到低分页
+    @GetMapping("/risk")
+    public ResponseEntity<RiskPage> risk(@RequestParam String workspaceId,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (offset < 0 || limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return withAnalyzed(workspaceId, workspace -> {
+            RiskRanking ranking = riskService.ranking(workspace);
+            return ResponseEntity.ok(new RiskPage(ranking.size(), offset, limit, ranking.page(offset, limit)));
+        });
+    }
+
+    @GetMapping("/image")
+    public ResponseEntity<Resource> image(@RequestParam String workspaceId) {
+        return withAnalyzed(workspaceId, workspace -> ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .body(new FileSystemResource(callGraphService.callGraphPng(workspace))));
+    }
+
+    @GetMapping("/cfg")
+    public ResponseEntity<Resource> cfg(@RequestParam String workspaceId, @RequestParam String function) {
+        return withAnalyzed(workspaceId, workspace -> ResponseEntity.ok()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(new FileSystemResource(callGraphService.cfgFile(workspace, function))));
+    }
+
+    private <T> ResponseEntity<T> withAnalyzed(String workspaceId, Function<Workspace, ResponseEntity<T>> action) {
+        try {
+            Workspace workspace = workspaceService.get(workspaceId);
+            if (!slicingService.isAnalyzed(workspace)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return action.apply(workspace);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
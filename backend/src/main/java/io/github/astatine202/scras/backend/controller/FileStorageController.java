@@ -1,6 +1,7 @@
 package io.github.astatine202.scras.backend.controller;
 
 import io.github.astatine202.scras.backend.service.FileStorageService;
+import io.github.astatine202.scras.backend.service.WorkspaceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -9,9 +10,12 @@ import org.springframework.web.bind.annotation.*;
 public class FileStorageController {
     @Autowired
     private FileStorageService fileStorageService;
+    @Autowired
+    private WorkspaceService workspaceService;
 
     @GetMapping("/cleanTempDirectories")
     public void cleanTempDirectories() {
+        workspaceService.removeAll();
         fileStorageService.cleanTempDirectories();
     }
 }
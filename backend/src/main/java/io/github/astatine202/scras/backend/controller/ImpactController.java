@@ -0,0 +1,91 @@
+package io.github.astatine202.scras.backend.controller;
+
+import io.github.astatine202.scras.backend.service.AnalysisJob;
+import io.github.astatine202.scras.backend.service.ImpactService;
+import io.github.astatine202.scras.backend.service.ProjectService;
+import io.github.astatine202.scras.backend.service.Workspace;
+import io.github.astatine202.scras.backend.service.WorkspaceService;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * 变更影响分析. 修订版放在新的工作区中分析, 返回其 workspaceId 和分析任务,
+ * 任务完成后通过 GET /api/impact/{workspaceId} 获取结果.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/impact")
+public class ImpactController {
+    private final WorkspaceService workspaceService;
+    private final ProjectService projectService;
+    private final ImpactService impactService;
+
+    // 请求体为相对基线项目的统一 diff
+    @PostMapping("/diff")
+    public ResponseEntity<Map<String, Object>> submitDiff(@RequestParam String workspaceId, InputStream body) {
+        return submit(workspaceId, (base, revision) -> impactService.submitDiff(base, revision, body));
+    }
+
+    // 上传完整的修订版, 格式同 /api/slice/uploadProject
+    @PostMapping("/revision")
+    public ResponseEntity<Map<String, Object>> submitRevision(@RequestParam String workspaceId,
+            @RequestParam MultipartFile[] files) {
+        return submit(workspaceId, (base, revision) -> {
+            String projectName = (String) projectService.handleProjectUpload(revision, files).get("projectName");
+            return impactService.submitRevision(base, revision, projectName);
+        });
+    }
+
+    @GetMapping("/{workspaceId}")
+    public ResponseEntity<?> getImpact(@PathVariable String workspaceId) {
+        try {
+            Workspace revision = workspaceService.get(workspaceId);
+            if (revision.getImpact() != null) {
+                return ResponseEntity.ok(revision.getImpact());
+            }
+            if (revision.getJob() == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(revision.getJob());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Submission {
+        AnalysisJob submit(Workspace base, Workspace revision) throws IOException;
+    }
+
+    private ResponseEntity<Map<String, Object>> submit(String baseWorkspaceId, Submission submission) {
+        Workspace base;
+        try {
+            base = workspaceService.get(baseWorkspaceId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        Workspace revision = workspaceService.create();
+        try {
+            AnalysisJob job = submission.submit(base, revision);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(Map.of("workspaceId", revision.getId(), "job", job));
+        } catch (IllegalStateException e) {
+            workspaceService.remove(revision.getId());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IOException | SecurityException e) {
+            workspaceService.remove(revision.getId());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            workspaceService.remove(revision.getId());
+            throw e;
+        }
+    }
+}
@@ -1,22 +1,37 @@
 package io.github.astatine202.scras.backend.controller;
 
+import io.github.astatine202.scras.backend.model.AffectedRequest;
+import io.github.astatine202.scras.backend.model.SliceBatchRequest;
+import io.github.astatine202.scras.backend.model.SliceCriterion;
+import io.github.astatine202.scras.backend.model.SliceBatchResult;
 import io.github.astatine202.scras.backend.model.SliceProject;
 import io.github.astatine202.scras.backend.model.SliceResult;
+import io.github.astatine202.scras.backend.model.SourceLines;
+import io.github.astatine202.scras.backend.service.AnalysisJobService;
+import io.github.astatine202.scras.backend.service.ArchiveService;
 import io.github.astatine202.scras.backend.service.FileStorageService;
 import io.github.astatine202.scras.backend.service.ProjectService;
 import io.github.astatine202.scras.backend.service.SlicingService;
+import io.github.astatine202.scras.backend.service.SourceFile;
+import io.github.astatine202.scras.backend.service.SourceService;
+import io.github.astatine202.scras.backend.service.Workspace;
+import io.github.astatine202.scras.backend.service.WorkspaceService;
 import lombok.RequiredArgsConstructor;
 
-import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
 import java.util.List;
 import java.util.Map;
 
@@ -24,66 +39,228 @@ import java.util.Map;
 @RequiredArgsConstructor
 @RequestMapping("/api/slice")
 public class SlicingController {
+    private static final MediaType TEXT_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+    // 查看器一次最多取的行数
+    private static final int MAX_LINES = 5000;
+
     private final FileStorageService storageService;
     private final ProjectService projectService;
-    private final ApplicationContext applicationContext; // 注入 Spring 上下文
-    private SlicingService slicingService; // 当前的 SlicingService 实例
+    private final WorkspaceService workspaceService;
+    private final SlicingService slicingService;
+    private final AnalysisJobService jobService;
+    private final SourceService sourceService;
 
     @PostMapping("/upload")
-    public ResponseEntity<String> uploadFile(@RequestParam MultipartFile file) {
-        // 每次上传时创建新的 SlicingService 实例
-        slicingService = applicationContext.getBean(SlicingService.class);
-        storageService.init();
-        String filename = storageService.save(file);
-        return ResponseEntity.ok(filename);
+    public ResponseEntity<Map<String, String>> uploadFile(@RequestParam MultipartFile file) {
+        // 每次上传时创建独立的工作区
+        Workspace workspace = workspaceService.create();
+        try {
+            String filename = storageService.save(workspace, file);
+            return ResponseEntity.ok(Map.of("workspaceId", workspace.getId(), "filename", filename));
+        } catch (RuntimeException e) {
+            workspaceService.remove(workspace.getId());
+            throw e;
+        }
     }
 
     @PostMapping("/uploadProject")
     public ResponseEntity<Map<String, Object>> uploadProject(@RequestParam MultipartFile[] files) throws IOException {
-        // 每次上传项目时创建新的 SlicingService 实例
-        slicingService = applicationContext.getBean(SlicingService.class);
-        storageService.init();
-        Map<String, Object> result = projectService.handleProjectUpload(files);
-        return ResponseEntity.ok(result);
+        // 每次上传项目时创建独立的工作区
+        Workspace workspace = workspaceService.create();
+        try {
+            Map<String, Object> result = projectService.handleProjectUpload(workspace, files);
+            return ResponseEntity.ok(result);
+        } catch (SecurityException e) {
+            workspaceService.remove(workspace.getId());
+            return ResponseEntity.badRequest().build();
+        } catch (IOException | RuntimeException e) {
+            workspaceService.remove(workspace.getId());
+            throw e;
+        }
+    }
+
+    // 压缩包以原始请求体上传, 边接收边解压, 不经过 multipart 缓冲
+    @PostMapping("/uploadArchive")
+    public ResponseEntity<Map<String, Object>> uploadArchive(@RequestParam String name, InputStream body)
+            throws IOException {
+        if (!ArchiveService.isSupported(name)) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+        Workspace workspace = workspaceService.create();
+        try {
+            Map<String, Object> result = projectService.handleArchiveUpload(workspace, body, name);
+            return ResponseEntity.ok(result);
+        } catch (SecurityException e) {
+            workspaceService.remove(workspace.getId());
+            return ResponseEntity.badRequest().build();
+        } catch (IOException | RuntimeException e) {
+            workspaceService.remove(workspace.getId());
+            throw e;
+        }
     }
 
     @GetMapping("/getFileContent")
-    public ResponseEntity<String> getFileContent(@RequestParam String path) {
+    public ResponseEntity<String> getFileContent(@RequestParam String workspaceId, @RequestParam String path,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            String inputPath = "temp/input";
-            Path filePath = Paths.get(inputPath, path);
-            String content = Files.readString(filePath);
-            return ResponseEntity.ok(content);
+            SourceFile source = sourceService.open(workspaceService.get(workspaceId), path);
+            if (SourceService.matches(ifNoneMatch, source.etag())) {
+                return notModified(source);
+            }
+            return revalidated(source).contentType(TEXT_UTF8).body(source.text());
+        } catch (SecurityException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("文件不存在");
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("无法读取文件内容");
         }
     }
 
+    // 按行号区间读取源文件, 查看器只请求可见的部分
+    @GetMapping("/fileLines")
+    public ResponseEntity<?> getFileLines(@RequestParam String workspaceId, @RequestParam String path,
+                                          @RequestParam(defaultValue = "1") int from,
+                                          @RequestParam(required = false) Integer to,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        int last = to == null ? from + MAX_LINES - 1 : to;
+        if (from < 1 || last < from || last - from >= MAX_LINES) {
+            return ResponseEntity.badRequest().body("行号区间无效, 一次最多读取 " + MAX_LINES + " 行");
+        }
+        try {
+            SourceFile source = sourceService.open(workspaceService.get(workspaceId), path);
+            if (SourceService.matches(ifNoneMatch, source.etag())) {
+                return notModified(source);
+            }
+            int end = Math.min(last, source.lineCount());
+            return revalidated(source).body(new SourceLines(path, from, Math.max(end, from - 1),
+                    source.lineCount(), source.lines(from, end)));
+        } catch (SecurityException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("文件不存在");
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("无法读取文件内容");
+        }
+    }
+
+    // 文件版本作为 ETag, 浏览器每次使用缓存前都带 If-None-Match 重新验证
+    private static ResponseEntity.BodyBuilder revalidated(SourceFile source) {
+        return ResponseEntity.ok().eTag(source.etag()).cacheControl(CacheControl.noCache());
+    }
+
+    private static <T> ResponseEntity<T> notModified(SourceFile source) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(source.etag())
+                .cacheControl(CacheControl.noCache()).build();
+    }
+
+    // 分析尚未完成时提交 (或复用) 分析任务并返回 202, 客户端轮询任务状态后重试
     @GetMapping("/slice")
-    public ResponseEntity<SliceResult> getSlice(
+    public ResponseEntity<?> getSlice(
+            @RequestParam String workspaceId,
             @RequestParam String filename,
             @RequestParam String variable,
             @RequestParam String function) {
         try {
-            List<Integer> lines = slicingService.processSlice(filename, variable, function);
+            Workspace workspace = workspaceService.get(workspaceId);
+            if (!slicingService.isAnalyzed(workspace)) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submit(workspace, filename, false));
+            }
+            List<Integer> lines = slicingService.processSlice(workspace, filename, variable, function);
             return ResponseEntity.ok(new SliceResult(variable, function, lines));
+        } catch (SecurityException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
     @GetMapping("/sliceProject")
-    public ResponseEntity<SliceProject> getSliceProject(
+    public ResponseEntity<?> getSliceProject(
+            @RequestParam String workspaceId,
             @RequestParam String projectName,
             @RequestParam String variable,
             @RequestParam String function,
             @RequestParam String filename) {
         try {
-            Map<String, List<Integer>> lines = slicingService.processSlice(filename,
+            Workspace workspace = workspaceService.get(workspaceId);
+            if (!slicingService.isAnalyzed(workspace)) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submit(workspace, projectName, true));
+            }
+            Map<String, List<Integer>> lines = slicingService.processSlice(workspace, filename,
                     variable, function, projectName);
             return ResponseEntity.ok(new SliceProject(variable, function, filename, lines));
+        } catch (SecurityException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // 批量查询, 条件可使用通配符 "*", 例如 {"variable": "*", "function": "main"}; 条件数超过上限时返回 400
+    @PostMapping("/batch")
+    public ResponseEntity<SliceBatchResult> getSliceBatch(@RequestBody SliceBatchRequest request) {
+        if (request.getWorkspaceId() == null || request.getCriteria() == null || request.getCriteria().isEmpty()
+                || request.getCriteria().size() > SliceBatchRequest.MAX_CRITERIA
+                || request.getCriteria().stream().anyMatch(c -> c.getVariable() == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            Workspace workspace = workspaceService.get(request.getWorkspaceId());
+            if (!slicingService.isAnalyzed(workspace)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return ResponseEntity.ok(slicingService.processBatch(workspace, request.getCriteria(), request.isUnion()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // 链接后 IR 的文本形式, 用于调试; 位码流水线下首次请求时才生成
+    @GetMapping("/ir")
+    public ResponseEntity<Resource> getTextIr(@RequestParam String workspaceId) {
+        try {
+            Workspace workspace = workspaceService.get(workspaceId);
+            if (!slicingService.isAnalyzed(workspace)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(TEXT_UTF8)
+                    .body(new FileSystemResource(slicingService.textIr(workspace)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // 反向查询: 哪些条件的前向切片经过给定的行区间
+    @PostMapping("/affected")
+    public ResponseEntity<List<SliceCriterion>> getAffected(@RequestBody AffectedRequest request) {
+        if (request.getWorkspaceId() == null || request.getRanges() == null
+                || request.getRanges().stream().anyMatch(r -> r.getFile() == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            Workspace workspace = workspaceService.get(request.getWorkspaceId());
+            if (!slicingService.isAnalyzed(workspace)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return ResponseEntity.ok(slicingService.affectedCriteria(workspace, request.getRanges()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+}
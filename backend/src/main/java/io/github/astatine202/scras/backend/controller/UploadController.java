@@ -0,0 +1,92 @@
+package io.github.astatine202.scras.backend.controller;
+
+import io.github.astatine202.scras.backend.service.ChunkedUploadService;
+import io.github.astatine202.scras.backend.service.ChunkedUploadService.OffsetMismatchException;
+import io.github.astatine202.scras.backend.service.Workspace;
+import io.github.astatine202.scras.backend.service.WorkspaceService;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * 大型项目的可续传分片上传:
+ * <ol>
+ * <li>POST /api/upload?name=&size= 创建上传, 返回 workspaceId</li>
+ * <li>PATCH /api/upload/{workspaceId}?offset= 按顺序追加分片 (原始请求体)</li>
+ * <li>GET /api/upload/{workspaceId} 查询已接收的偏移量, 用于断点续传</li>
+ * <li>POST /api/upload/{workspaceId}/complete 解压并返回项目信息</li>
+ * </ol>
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/upload")
+public class UploadController {
+    private final ChunkedUploadService uploadService;
+    private final WorkspaceService workspaceService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> start(@RequestParam String name, @RequestParam long size)
+            throws IOException {
+        try {
+            Workspace workspace = uploadService.start(name, size);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(Map.of("workspaceId", workspace.getId(), "offset", 0L));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{workspaceId}")
+    public ResponseEntity<Map<String, Object>> offset(@PathVariable String workspaceId) throws IOException {
+        try {
+            Workspace workspace = workspaceService.get(workspaceId);
+            return ResponseEntity.ok(Map.of("workspaceId", workspaceId, "offset", uploadService.offset(workspace)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping("/{workspaceId}")
+    public ResponseEntity<Map<String, Object>> append(@PathVariable String workspaceId,
+            @RequestParam long offset, InputStream body) throws IOException {
+        Workspace workspace;
+        try {
+            workspace = workspaceService.get(workspaceId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            long next = uploadService.append(workspace, offset, body);
+            return ResponseEntity.ok(Map.of("workspaceId", workspaceId, "offset", next));
+        } catch (OffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("workspaceId", workspaceId, "offset", e.getReceived()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{workspaceId}/complete")
+    public ResponseEntity<Map<String, Object>> complete(@PathVariable String workspaceId) throws IOException {
+        Workspace workspace;
+        try {
+            workspace = workspaceService.get(workspaceId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(uploadService.complete(workspace));
+        } catch (OffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("workspaceId", workspaceId, "offset", e.getReceived()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.astatine202.scras.backend.controller;
+
+import io.github.astatine202.scras.backend.config.WorkerProperties;
+import io.github.astatine202.scras.backend.toolchain.ToolTask;
+import io.github.astatine202.scras.backend.toolchain.ToolTaskResult;
+import io.github.astatine202.scras.backend.toolchain.UnknownWorkerException;
+import io.github.astatine202.scras.backend.toolchain.WorkerCoordinator;
+import io.github.astatine202.scras.backend.toolchain.WorkerTransport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * worker 进程访问协调节点的接口, 仅在 scras.toolchain.mode=remote 时启用.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/workers")
+@ConditionalOnProperty(name = "scras.toolchain.mode", havingValue = "remote")
+public class WorkerController {
+    public static final String TOKEN_HEADER = "X-Worker-Token";
+
+    private final WorkerCoordinator coordinator;
+    private final WorkerProperties properties;
+
+    @PostMapping("/register")
+    public ResponseEntity<?> register(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @RequestBody WorkerTransport.Registration registration) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.ok(Map.of("workerId", coordinator.register(registration)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/heartbeat")
+    public ResponseEntity<WorkerTransport.Heartbeat> heartbeat(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token, @PathVariable String id) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(coordinator.heartbeat(id));
+    }
+
+    // 长轮询: 没有任务时最多等待 scras.worker.poll-wait, 返回 204
+    @PostMapping("/{id}/poll")
+    public ResponseEntity<ToolTask> poll(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @PathVariable String id) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            ToolTask task = coordinator.poll(id, properties.getPollWait());
+            return task == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(task);
+        } catch (UnknownWorkerException e) {
+            // 未注册或已失联, worker 需重新注册
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<Void> complete(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @PathVariable String id, @RequestBody ToolTaskResult result) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        coordinator.complete(id, result);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping
+    public ResponseEntity<List<WorkerCoordinator.WorkerInfo>> list(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(coordinator.workers());
+    }
+
+    // 启动时已保证配置了 token
+    private boolean authorized(String token) {
+        return token != null && MessageDigest.isEqual(properties.getToken().getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8));
+    }
+}
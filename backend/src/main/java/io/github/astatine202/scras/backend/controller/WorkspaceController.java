@@ -0,0 +1,21 @@
+package io.github.astatine202.scras.backend.controller;
+
+import io.github.astatine202.scras.backend.service.WorkspaceService;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/workspace")
+public class WorkspaceController {
+    private final WorkspaceService workspaceService;
+
+    // 释放工作区及其目录
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> remove(@PathVariable String id) {
+        workspaceService.remove(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AffectedRequest {
+    private String workspaceId;
+    private List<LineRange> ranges;
+}
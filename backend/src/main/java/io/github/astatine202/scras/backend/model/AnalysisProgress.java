@@ -0,0 +1,14 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AnalysisProgress {
+    private String stage;
+    private String detail;
+    private int completed;
+    private int total;
+    private long timestamp;
+}
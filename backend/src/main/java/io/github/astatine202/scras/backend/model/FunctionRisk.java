@@ -0,0 +1,15 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.Data;
+
+@Data
+public class FunctionRisk {
+    private final String function;
+    private final double score;
+    private final int depth;
+    private final int callCount;
+    private final int fanOut;
+    private final int mccabeComplexity;
+    // 该函数中各切片条件的最大前向切片行数
+    private final int sliceSize;
+}
@@ -0,0 +1,25 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+public class ImpactResult {
+    private String baseWorkspaceId;
+    private String workspaceId;
+    private Set<String> changedFiles;
+    private Set<String> deletedFiles;
+    // 修订版中的变更行
+    private List<LineRange> changedLines;
+    // 前向切片经过变更行的条件
+    private List<SliceCriterion> criteria;
+    // 这些条件前向切片的并集: 文件 -> 行号
+    private Map<String, List<Integer>> lines;
+    // 调用图中从受影响函数出发可达的函数
+    private List<String> functions;
+}
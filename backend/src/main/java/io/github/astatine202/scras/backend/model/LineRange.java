@@ -0,0 +1,15 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineRange {
+    private String file;
+    // 闭区间 [from, to]
+    private int from;
+    private int to;
+}
@@ -0,0 +1,12 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.Data;
+
+@Data
+public class NodeInfo {
+    private final String nodeId;
+    private final int depth;
+    private final int callCount;
+    private final int fanOut;
+    private final int mccabeComplexity;
+}
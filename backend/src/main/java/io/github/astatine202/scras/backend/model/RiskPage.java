@@ -0,0 +1,15 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class RiskPage {
+    private int total;
+    private int offset;
+    private int limit;
+    private List<FunctionRisk> items;
+}
@@ -0,0 +1,16 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SliceBatchRequest {
+    // 单个请求最多的条件数, 通配符可覆盖全部条件, 无需逐个列出
+    public static final int MAX_CRITERIA = 1000;
+
+    private String workspaceId;
+    private List<SliceCriterion> criteria;
+    // 是否同时返回按文件合并的并集
+    private boolean union;
+}
@@ -0,0 +1,16 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class SliceBatchResult {
+    // "var@func" -> (文件 -> 行号)
+    private Map<String, Map<String, List<Integer>>> results;
+    // 未请求并集时为 null
+    private Map<String, List<Integer>> union;
+}
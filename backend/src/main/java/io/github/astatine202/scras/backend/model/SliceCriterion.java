@@ -0,0 +1,14 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SliceCriterion {
+    // "*" 表示任意变量 / 任意函数
+    private String variable;
+    private String function;
+}
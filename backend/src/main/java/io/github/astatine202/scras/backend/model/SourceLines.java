@@ -0,0 +1,17 @@
+package io.github.astatine202.scras.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SourceLines {
+    private String path;
+    // 闭区间 [from, to], 超出文件末尾时 lines 为空
+    private int from;
+    private int to;
+    private int totalLines;
+    private List<String> lines;
+}
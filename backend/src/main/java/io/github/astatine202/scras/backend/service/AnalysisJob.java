@@ -0,0 +1,181 @@
+package io.github.astatine202.scras.backend.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.github.astatine202.scras.backend.model.AnalysisProgress;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+/**
+ * 一次异步分析任务, 记录各阶段进度并推送给 SSE 订阅者.
+ */
+@Slf4j
+@Getter
+public class AnalysisJob implements AnalysisListener {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final String workspaceId;
+    // 项目名 (多文件) 或文件名 (单文件)
+    private final String target;
+    private final boolean project;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String stage;
+    private volatile String error;
+    private volatile long finishedAt;
+
+    // 每个阶段的最新进度
+    private final Map<String, AnalysisProgress> stages = new LinkedHashMap<>();
+
+    @JsonIgnore
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    @JsonIgnore
+    private volatile Future<?> future;
+    @JsonIgnore
+    private volatile boolean cancelRequested;
+
+    public AnalysisJob(String id, String workspaceId, String target, boolean project) {
+        this.id = id;
+        this.workspaceId = workspaceId;
+        this.target = target;
+        this.project = project;
+    }
+
+    public synchronized Map<String, AnalysisProgress> getStages() {
+        return new LinkedHashMap<>(stages);
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    // 状态只在持有锁时修改; SSE 推送都在锁外进行, 慢的订阅者不会阻塞编译线程和 cancel()
+
+    void start() {
+        synchronized (this) {
+            status = Status.RUNNING;
+        }
+        send("status", Status.RUNNING);
+    }
+
+    @Override
+    public void onProgress(String stage, String detail, int completed, int total) {
+        AnalysisProgress progress = new AnalysisProgress(stage, detail, completed, total, System.currentTimeMillis());
+        synchronized (this) {
+            this.stage = stage;
+            stages.put(stage, progress);
+        }
+        send("progress", progress);
+    }
+
+    void finish(Status status, String error) {
+        List<SseEmitter> subscribers = close(status, error);
+        if (subscribers != null) {
+            complete(subscribers, status);
+        }
+    }
+
+    /** 取消任务, 正在运行的外部进程会被终止 */
+    public boolean cancel() {
+        List<SseEmitter> subscribers = null;
+        synchronized (this) {
+            if (status.isFinished()) {
+                return false;
+            }
+            cancelRequested = true;
+            if (future != null) {
+                future.cancel(true);
+            }
+            // 尚未开始执行的任务不会再被调度, 直接标记为已取消
+            if (status == Status.QUEUED) {
+                subscribers = close(Status.CANCELLED, null);
+            }
+        }
+        if (subscribers != null) {
+            complete(subscribers, Status.CANCELLED);
+        }
+        return true;
+    }
+
+    /** 订阅进度事件, 先补发已有的各阶段进度 */
+    public void subscribe(SseEmitter emitter) {
+        Status current;
+        List<AnalysisProgress> replay;
+        synchronized (this) {
+            current = status;
+            replay = List.copyOf(stages.values());
+            if (!current.isFinished()) {
+                emitter.onCompletion(() -> emitters.remove(emitter));
+                emitter.onTimeout(() -> emitters.remove(emitter));
+                emitters.add(emitter);
+            }
+        }
+        try {
+            emitter.send(SseEmitter.event().name("status").data(current));
+            for (AnalysisProgress progress : replay) {
+                emitter.send(SseEmitter.event().name("progress").data(progress));
+            }
+        } catch (IOException e) {
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+            return;
+        } catch (IllegalStateException e) {
+            // 补发期间任务已结束, 订阅已被 finish 关闭
+            return;
+        }
+        if (current.isFinished()) {
+            emitter.complete();
+        }
+    }
+
+    // 记录结束状态并取出当前订阅者; 已经结束时返回 null
+    private synchronized List<SseEmitter> close(Status status, String error) {
+        if (this.status.isFinished()) {
+            return null;
+        }
+        this.status = status;
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+        List<SseEmitter> subscribers = List.copyOf(emitters);
+        emitters.clear();
+        return subscribers;
+    }
+
+    private void complete(List<SseEmitter> subscribers, Status status) {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(status));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping SSE subscriber of job {}", id, e);
+            }
+        }
+    }
+
+    private void send(String name, Object data) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping SSE subscriber of job {}", id, e);
+                emitters.remove(emitter);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AnalysisJobService {
+    private final SlicingService slicingService;
+    @Qualifier("analysisExecutor")
+    private final ExecutorService analysisExecutor;
+    private final AnalysisMetrics metrics;
+    private final MeterRegistry registry;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${scras.analysis.job-retention:1h}")
+    private Duration retention;
+
+    // 排队中和运行中的分析任务数
+    @PostConstruct
+    void bindMetrics() {
+        for (AnalysisJob.Status status : List.of(AnalysisJob.Status.QUEUED, AnalysisJob.Status.RUNNING)) {
+            Gauge.builder("scras.analysis.jobs.active", jobs,
+                    all -> all.values().stream().filter(job -> job.getStatus() == status).count())
+                    .description("Analysis jobs not yet finished")
+                    .tag("status", status.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    /** 分析任务的执行体 */
+    @FunctionalInterface
+    public interface AnalysisTask {
+        void run(AnalysisListener listener) throws Exception;
+    }
+
+    /** 提交分析任务; 工作区已有未结束的任务时直接返回该任务 */
+    public AnalysisJob submit(Workspace workspace, String target, boolean project) {
+        if (project) {
+            Workspace.checkProjectName(target);
+        } else {
+            workspace.getInputFile(target);
+        }
+        return submit(workspace, target, project, listener -> {
+            if (project) {
+                slicingService.analyzeProject(workspace, target, listener);
+            } else {
+                slicingService.analyzeFile(workspace, target, listener);
+            }
+        });
+    }
+
+    public synchronized AnalysisJob submit(Workspace workspace, String target, boolean project, AnalysisTask task) {
+        AnalysisJob current = workspace.getJob();
+        if (current != null && !current.getStatus().isFinished()) {
+            return current;
+        }
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString(), workspace.getId(), target, project);
+        jobs.put(job.getId(), job);
+        workspace.setJob(job);
+        job.setFuture(analysisExecutor.submit(() -> run(job, task)));
+        log.info("Submitted analysis job {} for workspace {}", job.getId(), workspace.getId());
+        return job;
+    }
+
+    public AnalysisJob get(String jobId) {
+        AnalysisJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Job not found: " + jobId);
+        }
+        return job;
+    }
+
+    private void run(AnalysisJob job, AnalysisTask task) {
+        if (job.isCancelRequested()) {
+            return;
+        }
+        // 同一次分析的日志 (含编译线程) 都带有 analysisId
+        MDC.put("analysisId", job.getId());
+        MDC.put("workspaceId", job.getWorkspaceId());
+        Timer.Sample sample = Timer.start(registry);
+        job.start();
+        log.info("Analysis started target={} project={}", job.getTarget(), job.isProject());
+        try {
+            task.run(metrics.timing(job));
+            job.finish(AnalysisJob.Status.SUCCEEDED, null);
+        } catch (Throwable e) {
+            // 取消时子进程被强制终止, 可能表现为中断或非零退出码
+            if (job.isCancelRequested() || Thread.currentThread().isInterrupted()) {
+                job.finish(AnalysisJob.Status.CANCELLED, null);
+                log.info("Analysis job {} cancelled", job.getId());
+            } else {
+                job.finish(AnalysisJob.Status.FAILED, String.valueOf(e.getMessage()));
+                log.error("Analysis job {} failed", job.getId(), e);
+            }
+        } finally {
+            long nanos = sample.stop(registry.timer("scras.analysis.duration",
+                    "status", job.getStatus().name().toLowerCase()));
+            log.info("Analysis finished status={} durationMs={}", job.getStatus(), nanos / 1_000_000);
+            MDC.clear();
+        }
+    }
+
+    // 清理结束已久的任务记录
+    @Scheduled(fixedDelayString = "${scras.workspace.sweep-interval:5m}")
+    public void removeFinished() {
+        long deadline = System.currentTimeMillis() - retention.toMillis();
+        jobs.values().removeIf(job -> job.getStatus().isFinished() && job.getFinishedAt() < deadline);
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.astatine202.scras.backend.service;
+
+/**
+ * 分析流水线的进度回调.
+ */
+@FunctionalInterface
+public interface AnalysisListener {
+    AnalysisListener NONE = (stage, detail, completed, total) -> {
+    };
+
+    /**
+     * @param stage     阶段名, 如 compileToLLVM / llvm_link / runSlicingTool / fwdParser / impact
+     * @param detail    附加信息, 如正在编译的文件, 可为 null
+     * @param completed 已完成的工作量
+     * @param total     总工作量
+     */
+    void onProgress(String stage, String detail, int completed, int total);
+}
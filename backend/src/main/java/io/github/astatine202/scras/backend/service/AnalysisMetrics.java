@@ -0,0 +1,85 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分析流水线的指标, 通过 /actuator/prometheus 导出:
+ * <ul>
+ * <li>scras.analysis.stage — 各阶段耗时 (stage)</li>
+ * <li>scras.compile.file — 单个编译单元耗时 (cache = hit / miss / disabled)</li>
+ * <li>scras.result.cache — 项目分析结果缓存的查询次数 (tier = memory / disk / miss)</li>
+ * <li>scras.output.size — 各阶段输出文件大小 (file)</li>
+ * <li>scras.parse.bytes / scras.parse.duration — 解析器吞吐 (parser)</li>
+ * </ul>
+ * 外部进程的耗时和退出码见 scras.tool.duration.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AnalysisMetrics {
+    private final MeterRegistry registry;
+
+    public <T> T stage(String stage, Callable<T> body) throws Exception {
+        return registry.timer("scras.analysis.stage", "stage", stage).recordCallable(body);
+    }
+
+    /** 把进度回调中每个阶段从 0 到完成的时间计入 scras.analysis.stage */
+    public AnalysisListener timing(AnalysisListener listener) {
+        Map<String, Timer.Sample> running = new HashMap<>();
+        return (stage, detail, completed, total) -> {
+            synchronized (running) {
+                if (completed == 0) {
+                    running.put(stage, Timer.start(registry));
+                }
+                Timer.Sample sample = completed >= total ? running.remove(stage) : null;
+                if (sample != null) {
+                    long nanos = sample.stop(registry.timer("scras.analysis.stage", "stage", stage));
+                    log.info("stage={} durationMs={} units={}", stage, nanos / 1_000_000, total);
+                }
+            }
+            listener.onProgress(stage, detail, completed, total);
+        };
+    }
+
+    public void compiled(String cache, long nanos) {
+        registry.timer("scras.compile.file", "cache", cache).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void resultCache(String tier) {
+        registry.counter("scras.result.cache", "tier", tier).increment();
+    }
+
+    public void output(String file, Path path) {
+        try {
+            long size = Files.size(path);
+            DistributionSummary.builder("scras.output.size")
+                    .baseUnit("bytes")
+                    .tag("file", file)
+                    .register(registry)
+                    .record(size);
+            log.info("output={} bytes={}", file, size);
+        } catch (IOException e) {
+            log.debug("Cannot stat {}", path, e);
+        }
+    }
+
+    public void parsed(String parser, long bytes, long nanos) {
+        registry.counter("scras.parse.bytes", "parser", parser).increment(bytes);
+        registry.timer("scras.parse.duration", "parser", parser).record(nanos, TimeUnit.NANOSECONDS);
+        log.info("parser={} bytes={} durationMs={} mbPerSec={}", parser, bytes, nanos / 1_000_000,
+                String.format("%.1f", bytes / 1e6 / Math.max(nanos, 1) * 1e9));
+    }
+}
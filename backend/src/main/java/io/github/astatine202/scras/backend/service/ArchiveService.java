@@ -0,0 +1,116 @@
+package io.github.astatine202.scras.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 边读边解压 zip / tar / tar.gz 项目压缩包, 不在内存中缓存文件内容.
+ */
+@Service
+@Slf4j
+public class ArchiveService {
+    private static final String STAGING = ".extract";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${scras.upload.max-extracted-size:8GB}")
+    private DataSize maxExtractedSize;
+
+    public static boolean isSupported(String archiveName) {
+        String name = archiveName.toLowerCase();
+        return name.endsWith(".zip") || name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz");
+    }
+
+    /**
+     * 解压到 inputDir 下并返回项目名: 压缩包只有一个顶层目录时取该目录名, 否则取压缩包文件名.
+     */
+    public String extract(InputStream in, String archiveName, Path inputDir) throws IOException {
+        if (!isSupported(archiveName)) {
+            throw new IllegalArgumentException("Unsupported archive: " + archiveName);
+        }
+        Path staging = inputDir.resolve(STAGING);
+        Files.createDirectories(staging);
+        try (ArchiveInputStream<?> archive = open(new BufferedInputStream(in, BUFFER_SIZE), archiveName)) {
+            unpack(archive, staging);
+        }
+
+        List<Path> top;
+        try (Stream<Path> children = Files.list(staging)) {
+            top = children.toList();
+        }
+        String projectName;
+        if (top.size() == 1 && Files.isDirectory(top.get(0))) {
+            projectName = Workspace.checkProjectName(top.get(0).getFileName().toString());
+            Files.move(top.get(0), inputDir.resolve(projectName));
+            Files.delete(staging);
+        } else {
+            projectName = Workspace.checkProjectName(baseName(archiveName));
+            Files.move(staging, inputDir.resolve(projectName));
+        }
+        log.info("Extracted {} into {}", archiveName, inputDir.resolve(projectName));
+        return projectName;
+    }
+
+    private static ArchiveInputStream<?> open(InputStream in, String archiveName) throws IOException {
+        String name = archiveName.toLowerCase();
+        if (name.endsWith(".zip")) {
+            return new ZipArchiveInputStream(in);
+        }
+        if (name.endsWith(".tar")) {
+            return new TarArchiveInputStream(in);
+        }
+        return new TarArchiveInputStream(new GzipCompressorInputStream(in));
+    }
+
+    private void unpack(ArchiveInputStream<?> archive, Path targetDir) throws IOException {
+        Path root = targetDir.toAbsolutePath().normalize();
+        long limit = maxExtractedSize.toBytes();
+        long written = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ArchiveEntry entry;
+        while ((entry = archive.getNextEntry()) != null) {
+            if (!archive.canReadEntryData(entry)) {
+                continue;
+            }
+            // 防止 "../" 路径穿越
+            Path target = root.resolve(entry.getName()).normalize();
+            if (!target.startsWith(root) || target.equals(root)) {
+                throw new SecurityException("Illegal archive entry: " + entry.getName());
+            }
+            if (entry.isDirectory()) {
+                Files.createDirectories(target);
+                continue;
+            }
+            Files.createDirectories(target.getParent());
+            try (OutputStream out = Files.newOutputStream(target)) {
+                int n;
+                while ((n = archive.read(buffer)) != -1) {
+                    written += n;
+                    if (written > limit) {
+                        throw new IOException("Archive exceeds " + maxExtractedSize + " when extracted");
+                    }
+                    out.write(buffer, 0, n);
+                }
+            }
+        }
+    }
+
+    private static String baseName(String archiveName) {
+        String name = Paths.get(archiveName).getFileName().toString();
+        return name.replaceFirst("(?i)(\\.tar\\.gz|\\.tgz|\\.tar|\\.zip)$", "");
+    }
+}
@@ -0,0 +1,202 @@
+package io.github.astatine202.scras.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 以整数下标表示的调用图 (CSR 邻接表).
+ * <p>
+ * 深度在 SCC 缩点后的 DAG 上计算: 同一强连通分量 (相互递归) 内的函数深度相同,
+ * 深度为从该分量出发到叶子分量的最长调用链长度. 结果与遍历顺序无关, 且不使用递归.
+ */
+public final class CallGraph {
+    private final String[] nodeIds;
+    private final Map<String, Integer> indexOf;
+    // successors of v: targets[offsets[v] .. offsets[v + 1])
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] callCount;
+    private final int[] fanOut;
+
+    private CallGraph(String[] nodeIds, Map<String, Integer> indexOf, int[] offsets, int[] targets,
+            int[] callCount, int[] fanOut) {
+        this.nodeIds = nodeIds;
+        this.indexOf = indexOf;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.callCount = callCount;
+        this.fanOut = fanOut;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return nodeIds.length;
+    }
+
+    /** 节点下标, 不存在时返回 -1 */
+    public int indexOf(String nodeId) {
+        return indexOf.getOrDefault(nodeId, -1);
+    }
+
+    public String nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    public int[] successors(int node) {
+        return Arrays.copyOfRange(targets, offsets[node], offsets[node + 1]);
+    }
+
+    /** 被调用次数 (入边数, 含重复调用点) */
+    public int callCount(int node) {
+        return callCount[node];
+    }
+
+    /** 扇出度 (出边数, 含重复调用点) */
+    public int fanOut(int node) {
+        return fanOut[node];
+    }
+
+    /**
+     * 用迭代版 Tarjan 算法求强连通分量, 并在分量完成时计算深度.
+     * Tarjan 按逆拓扑序产出分量, 因此某分量完成时其所有后继分量的深度都已确定.
+     */
+    public int[] depths() {
+        int n = nodeIds.length;
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] component = new int[n];
+        int[] edgePos = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        int[] componentDepth = new int[n];
+        Arrays.fill(index, -1);
+        Arrays.fill(component, -1);
+
+        int nextIndex = 0;
+        int components = 0;
+        int sp = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int csp = 0;
+            callStack[csp++] = root;
+            index[root] = low[root] = nextIndex++;
+            edgePos[root] = offsets[root];
+            stack[sp++] = root;
+            onStack[root] = true;
+
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                if (edgePos[v] < offsets[v + 1]) {
+                    int w = targets[edgePos[v]++];
+                    if (index[w] == -1) {
+                        index[w] = low[w] = nextIndex++;
+                        edgePos[w] = offsets[w];
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callStack[csp++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                csp--;
+                if (low[v] == index[v]) {
+                    int c = components++;
+                    int start = sp;
+                    do {
+                        start--;
+                        onStack[stack[start]] = false;
+                        component[stack[start]] = c;
+                    } while (stack[start] != v);
+
+                    int depth = 0;
+                    for (int i = start; i < sp; i++) {
+                        int u = stack[i];
+                        for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                            int target = component[targets[e]];
+                            if (target != c) {
+                                depth = Math.max(depth, componentDepth[target] + 1);
+                            }
+                        }
+                    }
+                    componentDepth[c] = depth;
+                    sp = start;
+                }
+                if (csp > 0) {
+                    int parent = callStack[csp - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+
+        int[] depths = new int[n];
+        for (int v = 0; v < n; v++) {
+            depths[v] = componentDepth[component[v]];
+        }
+        return depths;
+    }
+
+    public static final class Builder {
+        private final Map<String, Integer> indexOf = new HashMap<>();
+        private final List<String> nodeIds = new ArrayList<>();
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int edges;
+
+        public int node(String nodeId) {
+            Integer index = indexOf.get(nodeId);
+            if (index == null) {
+                index = nodeIds.size();
+                indexOf.put(nodeId, index);
+                nodeIds.add(nodeId);
+            }
+            return index;
+        }
+
+        public Builder addEdge(String fromId, String toId) {
+            return addEdge(node(fromId), node(toId));
+        }
+
+        public Builder addEdge(int fromNode, int toNode) {
+            if (edges == from.length) {
+                from = Arrays.copyOf(from, edges * 2);
+                to = Arrays.copyOf(to, edges * 2);
+            }
+            from[edges] = fromNode;
+            to[edges] = toNode;
+            edges++;
+            return this;
+        }
+
+        public CallGraph build() {
+            int n = nodeIds.size();
+            int[] callCount = new int[n];
+            int[] fanOut = new int[n];
+            for (int e = 0; e < edges; e++) {
+                fanOut[from[e]]++;
+                callCount[to[e]]++;
+            }
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] = offsets[v] + fanOut[v];
+            }
+            int[] fill = Arrays.copyOf(offsets, n);
+            int[] targets = new int[edges];
+            for (int e = 0; e < edges; e++) {
+                targets[fill[from[e]]++] = to[e];
+            }
+            return new CallGraph(nodeIds.toArray(String[]::new), Map.copyOf(indexOf), offsets, targets,
+                    callCount, fanOut);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+import io.github.astatine202.scras.backend.model.NodeInfo;
+import io.github.astatine202.scras.backend.toolchain.IrFormat;
+import io.github.astatine202.scras.backend.toolchain.ToolCommand;
+import io.github.astatine202.scras.backend.toolchain.ToolchainExecutor;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 调用图、CFG 及其渲染图不属于切片流水线, 只在指标或可视化接口请求时按需生成,
+ * 生成结果缓存在工作区中, 同一产物的并发请求只触发一次生成.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CallGraphService {
+    private static final String OPT = "opt";
+    private static final String GRAPHVIZ = "dot";
+
+    private static final String ARTIFACT_DOT = "callgraph";
+    private static final String ARTIFACT_CFG = "cfg";
+    private static final String ARTIFACT_PNG = "png";
+    private static final String ARTIFACT_METRICS = "metrics";
+
+    // 解析器复用读缓冲区, 每个线程一个
+    private static final ThreadLocal<DotReader> READERS = ThreadLocal.withInitial(DotReader::new);
+
+    private final ToolchainExecutor toolchain;
+    private final ToolchainProperties toolchainProperties;
+    private final AnalysisMetrics metrics;
+
+    private IrFormat irFormat() {
+        return toolchainProperties.getIrFormat();
+    }
+
+    // 调用图及各函数的深度、被调用数、扇出度和McCabe复杂度
+    public Map<String, NodeInfo> metrics(Workspace workspace) {
+        return workspace.artifact(ARTIFACT_METRICS, () -> {
+            callGraphDot(workspace);
+            cfgDir(workspace);
+            return metrics.stage(ARTIFACT_METRICS, () -> {
+                dotParser(workspace);
+                return workspace.getNodeMap();
+            });
+        });
+    }
+
+    public Path callGraphPng(Workspace workspace) {
+        return workspace.artifact(ARTIFACT_PNG, () -> {
+            callGraphDot(workspace);
+            return generate(workspace, ARTIFACT_PNG, workspace.getPngPath(),
+                    ToolCommand.of(GRAPHVIZ, "-Tpng", Workspace.FILE_DOT, "-o", Workspace.FILE_PNG)
+                            .setDirectory(workspace.getOutputDir()));
+        });
+    }
+
+    // 单个函数的 CFG (cfg.<函数名>.dot)
+    public Path cfgFile(Workspace workspace, String function) {
+        Path cfgPath = cfgDir(workspace);
+        Path cfgFile = cfgPath.resolve("cfg." + function + ".dot").normalize();
+        if (!cfgFile.startsWith(cfgPath) || !Files.isRegularFile(cfgFile)) {
+            throw new IllegalArgumentException("CFG not found for function " + function);
+        }
+        return cfgFile;
+    }
+
+    public Path callGraphDot(Workspace workspace) {
+        return workspace.artifact(ARTIFACT_DOT, () -> {
+            // 只需要 callgraph.dot, 不再回写 IR
+            return generate(workspace, ARTIFACT_DOT, workspace.getDotPath(),
+                    ToolCommand.of(OPT, "-dot-callgraph", irFormat().linkedName(), "-disable-output")
+                            .setDirectory(workspace.getOutputDir()));
+        });
+    }
+
+    public Path cfgDir(Workspace workspace) {
+        return workspace.artifact(ARTIFACT_CFG, () -> {
+            Path cfgPath = workspace.getCfgPath();
+            Files.createDirectories(cfgPath);
+            metrics.stage(ARTIFACT_CFG, () -> {
+                run(workspace, ToolCommand.of(OPT, "-dot-cfg", toolchain.toolPath(workspace.getIrPath(irFormat())),
+                        "-disable-output").setDirectory(cfgPath));
+                return cfgPath;
+            });
+            return cfgPath;
+        });
+    }
+
+    // 运行单个生成步骤, 记录耗时和产物大小
+    private Path generate(Workspace workspace, String artifact, Path output, ToolCommand command) throws Exception {
+        metrics.stage(artifact, () -> {
+            run(workspace, command);
+            return output;
+        });
+        metrics.output(artifact, output);
+        return output;
+    }
+
+    @SneakyThrows
+    private void run(Workspace workspace, ToolCommand command) {
+        Path outputDir = workspace.getOutputDir();
+        // opt 会不可避免地在控制台进行标准输出, 追加到日志文件中以免缓冲区阻塞
+        command.setOutput(ProcessBuilder.Redirect.appendTo(outputDir.resolve("process_stdout.log").toFile()))
+                .setError(ProcessBuilder.Redirect.appendTo(outputDir.resolve("process_stderr.log").toFile()));
+        if (toolchain.run(command) != 0) {
+            throw new RuntimeException("Failed to generate call graph");
+        }
+    }
+
+    @SneakyThrows
+    private void dotParser(Workspace workspace) {
+        Path dotPath = workspace.getDotPath();
+        Map<String, NodeInfo> nodeMap = workspace.getNodeMap();
+        // 函数名 -> 节点 ID
+        Map<String, String> labels = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        CallGraph callGraph = readCallGraph(dotPath, labels);
+        metrics.parsed("callgraph", Files.size(dotPath), System.nanoTime() - start);
+        workspace.setCallGraph(callGraph);
+        start = System.nanoTime();
+        Map<String, Integer> mccabeComplexityMap = calMcCabeComplexity(workspace.getCfgPath());
+        metrics.parsed("cfg", cfgBytes(workspace.getCfgPath()), System.nanoTime() - start);
+
+        // 一次遍历计算所有节点的深度、被调用数、扇出度和McCabe复杂度
+        int[] depths = callGraph.depths();
+        nodeMap.clear();
+        labels.forEach((functionName, nodeId) -> {
+            int node = callGraph.indexOf(nodeId);
+            nodeMap.put(functionName, new NodeInfo(nodeId,
+                    depths[node], callGraph.callCount(node), callGraph.fanOut(node),
+                    mccabeComplexityMap.getOrDefault(functionName, 0)));
+        });
+    }
+
+    // 解析 callgraph.dot, 有标签的节点记入 labels (函数名 -> 节点 ID)
+    static CallGraph readCallGraph(Path dotPath, Map<String, String> labels) throws IOException {
+        CallGraph.Builder builder = CallGraph.builder();
+        READERS.get().read(dotPath, new DotReader.Handler() {
+            @Override
+            public void node(byte[] buf, int idStart, int idEnd, int labelStart, int labelEnd) {
+                if (labelStart < 0) {
+                    return;
+                }
+                String nodeId = DotReader.string(buf, idStart, idEnd);
+                builder.node(nodeId);
+                labels.put(DotReader.string(buf, labelStart, labelEnd), nodeId);
+            }
+
+            @Override
+            public void edge(byte[] buf, int fromStart, int fromEnd, int toStart, int toEnd) {
+                builder.addEdge(DotReader.string(buf, fromStart, fromEnd), DotReader.string(buf, toStart, toEnd));
+            }
+        });
+        return builder.build();
+    }
+
+    // 并行计算 cfg 文件夹中每个函数 (cfg.<函数名>.dot) 的McCabe复杂度
+    @SneakyThrows
+    public Map<String, Integer> calMcCabeComplexity(Path cfgFolderPath) {
+        List<Path> dotFiles;
+        try (Stream<Path> paths = Files.walk(cfgFolderPath)) {
+            dotFiles = paths.filter(p -> p.toString().endsWith(".dot")).toList();
+        }
+        return dotFiles.parallelStream()
+                .collect(Collectors.toConcurrentMap(CallGraphService::functionName,
+                        CallGraphService::mccabeComplexity, (a, b) -> b));
+    }
+
+    private static long cfgBytes(Path cfgFolderPath) throws IOException {
+        try (Stream<Path> paths = Files.walk(cfgFolderPath)) {
+            return paths.filter(p -> p.toString().endsWith(".dot")).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
+    private static String functionName(Path dotFile) {
+        String name = dotFile.getFileName().toString();
+        int start = name.startsWith("cfg.") ? "cfg.".length() : 0;
+        return name.substring(start, name.length() - ".dot".length());
+    }
+
+    private static int mccabeComplexity(Path dotFile) {
+        int[] counts = new int[2]; // N, E
+        try {
+            READERS.get().read(dotFile, new DotReader.Handler() {
+                @Override
+                public void node(byte[] buf, int idStart, int idEnd, int labelStart, int labelEnd) {
+                    counts[0]++;
+                }
+
+                @Override
+                public void edge(byte[] buf, int fromStart, int fromEnd, int toStart, int toEnd) {
+                    counts[1]++;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse " + dotFile, e);
+        }
+        // McCabe复杂度公式：E - N + 2P
+        return counts[1] - counts[0] + 2; // P = 1
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.astatine202.scras.backend.service;
+
+import com.github.difflib.patch.AbstractDelta;
+import com.github.difflib.patch.Chunk;
+import com.github.difflib.patch.Patch;
+import io.github.astatine202.scras.backend.model.LineRange;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 基线与修订版之间的差异. 路径相对项目根目录 ("/" 分隔), 行号为修订版中的行号.
+ */
+@Getter
+public class ChangeSet {
+    private final Set<String> changedFiles = new TreeSet<>();
+    private final Set<String> deletedFiles = new TreeSet<>();
+    private final List<LineRange> changedLines = new ArrayList<>();
+
+    public void add(String file, Patch<String> patch) {
+        if (patch.getDeltas().isEmpty()) {
+            return;
+        }
+        changedFiles.add(file);
+        for (AbstractDelta<String> delta : patch.getDeltas()) {
+            Chunk<String> target = delta.getTarget();
+            if (target.size() > 0) {
+                changedLines.add(new LineRange(file, target.getPosition() + 1, target.getPosition() + target.size()));
+            } else {
+                // 纯删除: 取删除位置前后相邻的两行
+                changedLines.add(new LineRange(file, Math.max(1, target.getPosition()), target.getPosition() + 1));
+            }
+        }
+    }
+
+    public void delete(String file) {
+        deletedFiles.add(file);
+    }
+
+    public boolean isEmpty() {
+        return changedFiles.isEmpty() && deletedFiles.isEmpty();
+    }
+
+    /** 新增、修改或删除的文件 */
+    public Set<String> getTouchedFiles() {
+        Set<String> touched = new TreeSet<>(changedFiles);
+        touched.addAll(deletedFiles);
+        return touched;
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.astatine202.scras.backend.service;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * 分片上传中的压缩包, 已接收的字节数即临时文件的大小.
+ */
+@Data
+public class ChunkedUpload {
+    private final String archiveName;
+    private final long size;
+    private final Path partFile;
+}
@@ -0,0 +1,116 @@
+package io.github.astatine202.scras.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * 可续传的分片上传: 客户端按顺序追加分片, 断线后查询已接收的偏移量继续上传,
+ * 全部接收后再流式解压到工作区.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ChunkedUploadService {
+    private static final long TRANSFER_SIZE = 8L * 1024 * 1024;
+
+    private final WorkspaceService workspaceService;
+    private final ProjectService projectService;
+
+    public Workspace start(String archiveName, long size) throws IOException {
+        if (!ArchiveService.isSupported(archiveName) || size < 0) {
+            throw new IllegalArgumentException("Unsupported archive: " + archiveName);
+        }
+        Workspace workspace = workspaceService.create();
+        Path partFile = workspace.getRoot().resolve("upload.part");
+        Files.createFile(partFile);
+        workspace.setUpload(new ChunkedUpload(archiveName, size, partFile));
+        return workspace;
+    }
+
+    public long offset(Workspace workspace) throws IOException {
+        return Files.size(require(workspace).getPartFile());
+    }
+
+    /**
+     * 在 offset 处追加一个分片, offset 必须等于已接收的字节数.
+     *
+     * @return 追加后的偏移量
+     */
+    public long append(Workspace workspace, long offset, InputStream body) throws IOException {
+        ChunkedUpload upload = require(workspace);
+        synchronized (upload) {
+            Path partFile = upload.getPartFile();
+            long received = Files.size(partFile);
+            if (offset != received) {
+                throw new OffsetMismatchException(received);
+            }
+            try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.WRITE);
+                    ReadableByteChannel source = Channels.newChannel(body)) {
+                long position = received;
+                long n;
+                while ((n = channel.transferFrom(source, position, TRANSFER_SIZE)) > 0) {
+                    position += n;
+                    if (position > upload.getSize()) {
+                        // 丢弃超出声明大小的部分, 保持可续传
+                        channel.truncate(received);
+                        throw new IllegalArgumentException("Upload exceeds declared size " + upload.getSize());
+                    }
+                }
+                channel.force(false);
+                return position;
+            }
+        }
+    }
+
+    public Map<String, Object> complete(Workspace workspace) throws IOException {
+        ChunkedUpload upload = require(workspace);
+        synchronized (upload) {
+            long received = Files.size(upload.getPartFile());
+            if (received != upload.getSize()) {
+                throw new OffsetMismatchException(received);
+            }
+            Map<String, Object> result;
+            try (InputStream in = Files.newInputStream(upload.getPartFile())) {
+                result = projectService.handleArchiveUpload(workspace, in, upload.getArchiveName());
+            }
+            Files.delete(upload.getPartFile());
+            workspace.setUpload(null);
+            log.info("Completed chunked upload {} ({} bytes) into workspace {}",
+                    upload.getArchiveName(), received, workspace.getId());
+            return result;
+        }
+    }
+
+    private static ChunkedUpload require(Workspace workspace) {
+        ChunkedUpload upload = workspace.getUpload();
+        if (upload == null) {
+            throw new IllegalArgumentException("No upload in progress for workspace " + workspace.getId());
+        }
+        return upload;
+    }
+
+    /** 分片偏移量与已接收字节数不一致 */
+    public static class OffsetMismatchException extends IllegalStateException {
+        private final long received;
+
+        public OffsetMismatchException(long received) {
+            super("Expected offset " + received);
+            this.received = received;
+        }
+
+        public long getReceived() {
+            return received;
+        }
+    }
+}
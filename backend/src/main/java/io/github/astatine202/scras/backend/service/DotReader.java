@@ -0,0 +1,171 @@
+package io.github.astatine202.scras.backend.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * opt 生成的 DOT 文件 (callgraph.dot, cfg.*.dot) 的手写解析器.
+ * <p>
+ * 只识别 LLVM 输出的两种行:
+ * {@code Node0x1 [shape=record,label="{main}"];} 和 {@code Node0x1:s0 -> Node0x2;}.
+ * 文件整体读入可复用的字节缓冲区后逐行扫描, 记号以缓冲区下标回调给 {@link Handler},
+ * 只有调用方需要时才创建字符串. 实例不是线程安全的, 每个线程使用自己的实例.
+ */
+public final class DotReader {
+
+    public interface Handler {
+        /**
+         * 节点行; 没有 {@code label="{...}"} 时 labelStart 为 -1.
+         */
+        default void node(byte[] buf, int idStart, int idEnd, int labelStart, int labelEnd) {
+        }
+
+        /**
+         * 边行, 下标不含端口 (":s0").
+         */
+        default void edge(byte[] buf, int fromStart, int fromEnd, int toStart, int toEnd) {
+        }
+    }
+
+    private static final byte[] NODE = "Node".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LABEL = "label=\"{".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buf = new byte[64 * 1024];
+
+    public static String string(byte[] buf, int start, int end) {
+        return new String(buf, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /** @return 读取的字节数 */
+    public int read(Path dotPath, Handler handler) throws IOException {
+        int length = load(dotPath);
+        int pos = 0;
+        while (pos < length) {
+            int lineEnd = pos;
+            while (lineEnd < length && buf[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            parseLine(pos, lineEnd, handler);
+            pos = lineEnd + 1;
+        }
+        return length;
+    }
+
+    private int load(Path dotPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(dotPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("DOT file too large: " + dotPath);
+            }
+            if (buf.length < size) {
+                buf = new byte[(int) Math.max(size, buf.length * 2L)];
+            }
+            ByteBuffer target = ByteBuffer.wrap(buf, 0, (int) size);
+            while (target.hasRemaining() && channel.read(target) >= 0) {
+                // 读满为止
+            }
+            return target.position();
+        }
+    }
+
+    private void parseLine(int start, int end, Handler handler) {
+        // 去掉首尾空白 (含 '\r')
+        while (start < end && isSpace(buf[start])) {
+            start++;
+        }
+        while (end > start && isSpace(buf[end - 1])) {
+            end--;
+        }
+        if (end - start < 2 || buf[end - 1] != ';') {
+            return;
+        }
+
+        int idStart = start;
+        int idEnd = nodeId(start, end);
+        if (idEnd < 0) {
+            return;
+        }
+        int pos = port(idEnd, end);
+        if (pos < end && buf[pos] == ' ' && pos + 1 < end && buf[pos + 1] == '[') {
+            // 节点: Node.. [ ... ];
+            if (buf[end - 2] != ']') {
+                return;
+            }
+            int labelStart = indexOf(LABEL, pos + 2, end);
+            int labelEnd = -1;
+            if (labelStart >= 0) {
+                labelStart += LABEL.length;
+                labelEnd = labelStart;
+                while (labelEnd + 1 < end && !(buf[labelEnd] == '}' && buf[labelEnd + 1] == '"')) {
+                    labelEnd++;
+                }
+                if (labelEnd + 1 >= end) {
+                    labelStart = labelEnd = -1;
+                }
+            }
+            handler.node(buf, idStart, idEnd, labelStart, labelEnd);
+        } else if (end - pos > 4 && buf[pos] == ' ' && buf[pos + 1] == '-' && buf[pos + 2] == '>'
+                && buf[pos + 3] == ' ') {
+            // 边: Node..[:port] -> Node..[:port];
+            int toStart = pos + 4;
+            int toEnd = nodeId(toStart, end);
+            if (toEnd < 0 || port(toEnd, end) != end - 1) {
+                return;
+            }
+            handler.edge(buf, idStart, idEnd, toStart, toEnd);
+        }
+    }
+
+    // "Node" 后跟至少一个单词字符, 返回结束下标, 不匹配时返回 -1
+    private int nodeId(int pos, int end) {
+        if (end - pos <= NODE.length) {
+            return -1;
+        }
+        for (int i = 0; i < NODE.length; i++) {
+            if (buf[pos + i] != NODE[i]) {
+                return -1;
+            }
+        }
+        int idEnd = pos + NODE.length;
+        while (idEnd < end && isWord(buf[idEnd])) {
+            idEnd++;
+        }
+        return idEnd == pos + NODE.length ? -1 : idEnd;
+    }
+
+    // 跳过可选的 ":port"
+    private int port(int pos, int end) {
+        if (pos < end && buf[pos] == ':' && pos + 1 < end && isWord(buf[pos + 1])) {
+            pos++;
+            while (pos < end && isWord(buf[pos])) {
+                pos++;
+            }
+        }
+        return pos;
+    }
+
+    private int indexOf(byte[] pattern, int from, int end) {
+        outer:
+        for (int i = from; i + pattern.length <= end; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buf[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean isWord(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
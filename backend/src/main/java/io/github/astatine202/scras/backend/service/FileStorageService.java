@@ -15,32 +15,43 @@ import java.util.stream.Stream;
 @Service
 @Slf4j
 public class FileStorageService {
-    private final Path inputPath = Paths.get("temp/input");
-    private final Path outputPath = Paths.get("temp/output");
-    private final Path bufferPath = Paths.get("temp/buffer");
+    private final Path tempPath = Paths.get("temp");
+    private final Path workspacesPath = tempPath.resolve("workspaces");
+
+    public Path getWorkspacesPath() {
+        return workspacesPath;
+    }
 
     @SneakyThrows
-    public void init() {
-        Files.createDirectories(inputPath);
-        Files.createDirectories(outputPath);
-        Files.createDirectories(bufferPath);
+    public void init(Workspace workspace) {
+        Files.createDirectories(workspace.getInputDir());
+        Files.createDirectories(workspace.getOutputDir());
+        Files.createDirectories(workspace.getBufferDir());
     }
 
     @SneakyThrows
-    public String save(MultipartFile file) {
+    public String save(Workspace workspace, MultipartFile file) {
+        Path inputPath = workspace.getInputDir();
         Files.createDirectories(inputPath);
         cleanDirectory(inputPath);
-        Files.copy(file.getInputStream(),
-                this.inputPath.resolve(file.getOriginalFilename()));
-        return file.getOriginalFilename();
+        String filename = Paths.get(file.getOriginalFilename()).getFileName().toString();
+        Files.copy(file.getInputStream(), inputPath.resolve(filename));
+        return filename;
     }
 
     @PostConstruct // 启动时执行
     @PreDestroy // 关闭时执行
     public void cleanTempDirectories() {
-        cleanDirectory(inputPath);
-        cleanDirectory(outputPath);
-        cleanDirectory(bufferPath);
+        cleanDirectory(tempPath);
+    }
+
+    public void deleteDirectory(Path path) {
+        cleanDirectory(path);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error("删除目录失败: {}", path);
+        }
     }
 
     private void cleanDirectory(Path path) {
@@ -62,4 +73,4 @@ public class FileStorageService {
             log.error("清理目录失败: {}", path);
         }
     }
-}
\ No newline at end of file
+}
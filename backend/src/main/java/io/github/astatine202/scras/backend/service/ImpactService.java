@@ -0,0 +1,205 @@
+package io.github.astatine202.scras.backend.service;
+
+import com.github.difflib.DiffUtils;
+import com.github.difflib.patch.PatchFailedException;
+import com.github.difflib.unifieddiff.UnifiedDiff;
+import com.github.difflib.unifieddiff.UnifiedDiffFile;
+import com.github.difflib.unifieddiff.UnifiedDiffReader;
+import io.github.astatine202.scras.backend.model.ImpactResult;
+import io.github.astatine202.scras.backend.model.NodeInfo;
+import io.github.astatine202.scras.backend.model.SliceBatchResult;
+import io.github.astatine202.scras.backend.model.SliceCriterion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 变更影响分析: 在已分析的基线项目上应用统一 diff, 或与上传的修订版比较,
+ * 只重新编译改动过的编译单元, 然后给出前向切片经过变更行的条件、这些切片的并集
+ * 以及调用图中受影响函数可达的函数.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ImpactService {
+    public static final String STAGE_IMPACT = "impact";
+    private static final String DEV_NULL = "/dev/null";
+
+    private final SlicingService slicingService;
+    private final CallGraphService callGraphService;
+    private final AnalysisJobService jobService;
+    private final ProjectScanner projectScanner;
+
+    /** 复制基线项目到修订版工作区并应用统一 diff */
+    public AnalysisJob submitDiff(Workspace base, Workspace revision, InputStream diff) throws IOException {
+        String projectName = requireProject(base);
+        Path projectDir = revision.getProjectDir(projectName);
+        FileUtils.copyDirectory(base.getProjectDir(projectName).toFile(), projectDir.toFile());
+        ChangeSet changes = applyDiff(projectDir, projectName, diff);
+        return submit(base, revision, projectName, changes);
+    }
+
+    /** 修订版已上传到工作区, 与基线逐文件比较 */
+    public AnalysisJob submitRevision(Workspace base, Workspace revision, String projectName) throws IOException {
+        String baseProject = requireProject(base);
+        ChangeSet changes = compare(base.getProjectDir(baseProject), projectScanner.manifest(base, baseProject),
+                revision.getProjectDir(projectName), projectScanner.manifest(revision, projectName));
+        return submit(base, revision, projectName, changes);
+    }
+
+    private String requireProject(Workspace base) {
+        if (!slicingService.isAnalyzed(base) || base.getProjectName() == null) {
+            throw new IllegalStateException("Base workspace " + base.getId() + " has no analysed project");
+        }
+        return base.getProjectName();
+    }
+
+    private AnalysisJob submit(Workspace base, Workspace revision, String projectName, ChangeSet changes)
+            throws IOException {
+        if (changes.isEmpty()) {
+            throw new IOException("No changes against base workspace " + base.getId());
+        }
+        log.info("Revision {} of {} changes {} files", revision.getId(), base.getId(), changes.getTouchedFiles().size());
+        return jobService.submit(revision, projectName, true, listener -> {
+            slicingService.analyzeRevision(base, revision, projectName, changes.getTouchedFiles(), listener);
+            listener.onProgress(STAGE_IMPACT, null, 0, 1);
+            revision.setImpact(impact(base, revision, changes));
+            listener.onProgress(STAGE_IMPACT, null, 1, 1);
+        });
+    }
+
+    private ImpactResult impact(Workspace base, Workspace revision, ChangeSet changes) {
+        List<SliceCriterion> criteria = slicingService.affectedCriteria(revision, changes.getChangedLines());
+        SliceBatchResult slices = slicingService.processBatch(revision, criteria, true);
+        return new ImpactResult(base.getId(), revision.getId(),
+                changes.getChangedFiles(), changes.getDeletedFiles(), changes.getChangedLines(),
+                criteria, slices.getUnion(), reachedFunctions(revision, criteria));
+    }
+
+    // 从受影响条件所在的函数出发, 沿调用边可达的所有函数
+    private List<String> reachedFunctions(Workspace revision, List<SliceCriterion> criteria) {
+        Map<String, NodeInfo> nodes = callGraphService.metrics(revision);
+        CallGraph callGraph = revision.getCallGraph();
+        String[] names = new String[callGraph.size()];
+        nodes.forEach((name, info) -> names[callGraph.indexOf(info.getNodeId())] = name);
+
+        BitSet reached = new BitSet(callGraph.size());
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (SliceCriterion criterion : criteria) {
+            NodeInfo info = nodes.get(criterion.getFunction());
+            int node = info == null ? -1 : callGraph.indexOf(info.getNodeId());
+            if (node >= 0 && !reached.get(node)) {
+                reached.set(node);
+                queue.add(node);
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (int next : callGraph.successors(queue.poll())) {
+                if (!reached.get(next)) {
+                    reached.set(next);
+                    queue.add(next);
+                }
+            }
+        }
+
+        List<String> functions = new ArrayList<>();
+        reached.stream().filter(i -> names[i] != null).forEach(i -> functions.add(names[i]));
+        Collections.sort(functions);
+        return functions;
+    }
+
+    // 源文件按单字节编码读写, 非 UTF-8 的内容 (GBK 注释等) 原样保留
+    static ChangeSet applyDiff(Path projectDir, String projectName, InputStream diff) throws IOException {
+        ChangeSet changes = new ChangeSet();
+        for (UnifiedDiffFile file : parse(diff).getFiles()) {
+            String from = diffPath(file.getFromFile(), projectName);
+            String to = diffPath(file.getToFile(), projectName);
+            if (to == null) {
+                if (from != null) {
+                    Files.deleteIfExists(resolve(projectDir, from));
+                    changes.delete(from);
+                }
+                continue;
+            }
+            Path target = resolve(projectDir, to);
+            List<String> original = from == null ? List.of() : readLines(resolve(projectDir, from));
+            List<String> patched;
+            try {
+                patched = DiffUtils.patch(original, file.getPatch());
+            } catch (PatchFailedException e) {
+                throw new IOException("Diff does not apply to " + to + ": " + e.getMessage(), e);
+            }
+            if (from != null && !from.equals(to)) {
+                Files.delete(resolve(projectDir, from));
+                changes.delete(from);
+            }
+            Files.createDirectories(target.getParent());
+            Files.write(target, patched, StandardCharsets.ISO_8859_1);
+            // diff 的 hunk 含上下文行, 按补丁前后的内容重新比较得到实际改动的行
+            changes.add(to, DiffUtils.diff(original, patched));
+        }
+        return changes;
+    }
+
+    // UnifiedDiffReader 按默认字符集解码; 先把 diff 按单字节编码转成文本再交给它,
+    // 补丁中的行与 readLines 读出的行逐字节对应
+    private static UnifiedDiff parse(InputStream diff) throws IOException {
+        String text = new String(diff.readAllBytes(), StandardCharsets.ISO_8859_1);
+        return UnifiedDiffReader.parseUnifiedDiff(new ByteArrayInputStream(text.getBytes(Charset.defaultCharset())));
+    }
+
+    // git 的 a/ b/ 前缀已由 UnifiedDiffReader 去掉, 这里再去掉项目名前缀; /dev/null 表示新增或删除
+    private static String diffPath(String path, String projectName) {
+        if (path == null || path.equals(DEV_NULL)) {
+            return null;
+        }
+        path = path.trim().replace("\\", "/");
+        if (path.startsWith(projectName + "/")) {
+            path = path.substring(projectName.length() + 1);
+        }
+        return path;
+    }
+
+    private static Path resolve(Path projectDir, String relative) throws IOException {
+        Path path = projectDir.resolve(relative).normalize();
+        if (!path.startsWith(projectDir)) {
+            throw new IOException("Illegal file path: " + relative);
+        }
+        return path;
+    }
+
+    // 按清单中的内容哈希比较两个版本, 只对内容不同的文件计算行级差异
+    private static ChangeSet compare(Path baseDir, ProjectManifest baseManifest,
+            Path projectDir, ProjectManifest manifest) throws IOException {
+        ChangeSet changes = new ChangeSet();
+        for (ProjectManifest.Entry entry : manifest.getFiles()) {
+            ProjectManifest.Entry baseEntry = baseManifest.get(entry.path());
+            Path path = projectDir.resolve(entry.path());
+            if (baseEntry == null) {
+                changes.add(entry.path(), DiffUtils.diff(List.of(), readLines(path)));
+            } else if (!baseEntry.hash().equals(entry.hash())) {
+                changes.add(entry.path(), DiffUtils.diff(readLines(baseDir.resolve(entry.path())), readLines(path)));
+            }
+        }
+        baseManifest.getFiles().stream()
+                .map(ProjectManifest.Entry::path)
+                .filter(file -> manifest.get(file) == null)
+                .forEach(changes::delete);
+        return changes;
+    }
+
+    // 按单字节编码读取以免非 UTF-8 文件解码失败
+    private static List<String> readLines(Path path) throws IOException {
+        return Files.readAllLines(path, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,194 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.config.IrCacheProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 编译单元 LLVM IR 的磁盘缓存, 以源码内容 + 编译参数的哈希为键, 按总大小做 LRU 淘汰.
+ * <p>
+ * IR 调试信息中记录了源文件的绝对路径, 入库时将项目根目录替换为占位符,
+ * 取出时再替换为当前项目的根目录, 使同一份源码在不同上传之间可以复用.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@EnableConfigurationProperties(IrCacheProperties.class)
+public class IrCache {
+    // 条目按编译参数区分格式, 文本 IR 和位码都使用这一后缀
+    private static final String SUFFIX = ".ll";
+    private static final String ROOT_PLACEHOLDER = "@@SCRAS_SOURCE_ROOT@@";
+
+    private final IrCacheProperties properties;
+
+    // 访问顺序的索引: key -> 文件大小
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+
+    @PostConstruct
+    @SneakyThrows
+    public void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Files.createDirectories(properties.getDir());
+        // 按最后访问时间重建 LRU 顺序
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(properties.getDir())) {
+            files = paths.filter(p -> p.toString().endsWith(SUFFIX)).toList();
+        }
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path file : files) {
+            times.put(file, Files.getLastModifiedTime(file));
+        }
+        synchronized (this) {
+            files.stream()
+                    .sorted(Comparator.comparing(times::get))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        long size = file.toFile().length();
+                        index.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                        totalSize += size;
+                    });
+            evict();
+        }
+        log.info("IR cache loaded: {} entries, {} bytes", index.size(), totalSize);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /** 计算缓存键, parts 依次参与哈希 (如源码内容, 编译参数, 头文件摘要) */
+    @SneakyThrows
+    public static String key(byte[]... parts) {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (byte[] part : parts) {
+            digest.update(Integer.toString(part.length).getBytes(StandardCharsets.US_ASCII));
+            digest.update((byte) 0);
+            digest.update(part);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 命中时将缓存的 IR 写入 target, 并把占位符替换为 sourceRoot.
+     *
+     * @return 是否命中
+     */
+    public boolean fetch(String key, Path target, String sourceRoot) {
+        synchronized (this) {
+            if (index.get(key) == null) {
+                return false;
+            }
+        }
+        Path cached = entryPath(key);
+        try {
+            relocate(cached, target, ROOT_PLACEHOLDER, sourceRoot);
+            Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (IOException e) {
+            // 条目可能刚被淘汰, 按未命中处理
+            log.debug("IR cache entry {} unreadable", key, e);
+            remove(key);
+            return false;
+        }
+    }
+
+    /** 将编译产物 compiled 存入缓存 */
+    public void store(String key, Path compiled, String sourceRoot) {
+        Path cached = entryPath(key);
+        try {
+            Files.createDirectories(cached.getParent());
+            Path tmp = Files.createTempFile(cached.getParent(), key, ".tmp");
+            try {
+                relocate(compiled, tmp, sourceRoot, ROOT_PLACEHOLDER);
+                Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            long size = Files.size(cached);
+            synchronized (this) {
+                Long previous = index.put(key, size);
+                totalSize += size - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store IR cache entry {}", key, e);
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = index.remove(key);
+        if (size != null) {
+            totalSize -= size;
+        }
+    }
+
+    // 调用方持有锁
+    private void evict() {
+        long maxSize = properties.getMaxSize().toBytes();
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (totalSize > maxSize && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            try {
+                Files.deleteIfExists(entryPath(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to evict IR cache entry {}", eldest.getKey(), e);
+            }
+            totalSize -= eldest.getValue();
+            it.remove();
+        }
+    }
+
+    private Path entryPath(String key) {
+        return properties.getDir().resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+    // 只改写元数据行 ("!" 开头), 避免破坏带长度的字符串常量 (如 __FILE__);
+    // 位码无法改写, 原样复制 (见 IrFormat#isRelocatable)
+    static void relocate(Path from, Path to, String search, String replacement) throws IOException {
+        if (isBitcode(from)) {
+            Files.copy(from, to, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(from);
+                BufferedWriter writer = Files.newBufferedWriter(to)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("!")) {
+                    line = line.replace(search, replacement);
+                }
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    // 位码文件以 "BC" 0xC0DE 开头, 带包装头的 (如 Darwin) 以 0x0B17C0DE 开头
+    static boolean isBitcode(Path path) throws IOException {
+        byte[] magic = new byte[4];
+        try (InputStream in = Files.newInputStream(path)) {
+            if (in.readNBytes(magic, 0, 4) < 4) {
+                return false;
+            }
+        }
+        return (magic[0] == 'B' && magic[1] == 'C' && magic[2] == (byte) 0xC0 && magic[3] == (byte) 0xDE)
+                || (magic[0] == (byte) 0xDE && magic[1] == (byte) 0xC0 && magic[2] == 0x17 && magic[3] == 0x0B);
+    }
+}
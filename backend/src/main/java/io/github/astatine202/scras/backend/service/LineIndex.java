@@ -0,0 +1,112 @@
+package io.github.astatine202.scras.backend.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 切片结果的反向索引: (文件, 行号) -> 前向切片经过该行的条件编号 ({@link SliceStore} 中的位置).
+ * <p>
+ * 每个文件保存有序的行号数组, 以及按行号分段的条件编号 (CSR), 按行号区间查询只需一次二分查找.
+ */
+public final class LineIndex {
+    private final Map<String, FileLines> files;
+
+    private LineIndex(Map<String, FileLines> files) {
+        this.files = files;
+    }
+
+    private static final class FileLines {
+        // 有序去重的行号
+        private final int[] lines;
+        // lines[i] 对应 criteria[offsets[i], offsets[i + 1])
+        private final int[] offsets;
+        private final int[] criteria;
+
+        FileLines(int[] lines, int[] offsets, int[] criteria) {
+            this.lines = lines;
+            this.offsets = offsets;
+            this.criteria = criteria;
+        }
+    }
+
+    public static LineIndex build(SliceStore store) {
+        // 文件 -> (行号 << 32 | 条件编号)
+        Map<String, LongList> postings = new HashMap<>();
+        for (int criterion = 0; criterion < store.size(); criterion++) {
+            int id = criterion;
+            store.get(criterion).forEach((file, lines) -> {
+                LongList list = postings.computeIfAbsent(file, f -> new LongList());
+                for (int line : lines) {
+                    list.add((long) line << 32 | id);
+                }
+            });
+        }
+
+        Map<String, FileLines> files = new HashMap<>(postings.size() * 2);
+        postings.forEach((file, list) -> {
+            long[] pairs = list.toSortedArray();
+            int[] lines = new int[pairs.length];
+            int[] offsets = new int[pairs.length + 1];
+            int[] criteria = new int[pairs.length];
+            int n = 0;
+            for (int i = 0; i < pairs.length; i++) {
+                int line = (int) (pairs[i] >>> 32);
+                if (n == 0 || lines[n - 1] != line) {
+                    offsets[n] = i;
+                    lines[n++] = line;
+                }
+                criteria[i] = (int) pairs[i];
+            }
+            offsets[n] = pairs.length;
+            files.put(file, new FileLines(Arrays.copyOf(lines, n), Arrays.copyOf(offsets, n + 1), criteria));
+        });
+        return new LineIndex(files);
+    }
+
+    /** 索引数组占用的字节数, 用于结果缓存的内存权重 */
+    public long memorySize() {
+        long size = 0;
+        for (FileLines fileLines : files.values()) {
+            size += 64 + 4L * (fileLines.lines.length + fileLines.offsets.length + fileLines.criteria.length);
+        }
+        return size;
+    }
+
+    /** 把切片经过 file 中 [from, to] 任一行的条件编号加入 result */
+    public void criteria(String file, int from, int to, BitSet result) {
+        FileLines fileLines = files.get(file);
+        if (fileLines == null || from > to) {
+            return;
+        }
+        int i = Arrays.binarySearch(fileLines.lines, from);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        for (; i < fileLines.lines.length && fileLines.lines[i] <= to; i++) {
+            for (int j = fileLines.offsets[i]; j < fileLines.offsets[i + 1]; j++) {
+                result.set(fileLines.criteria[j]);
+            }
+        }
+    }
+
+    // 避免装箱的可增长 long 数组
+    private static final class LongList {
+        private long[] data = new long[8];
+        private int size;
+
+        void add(long value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(data, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.astatine202.scras.backend.service;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * 项目目录的清单: 所有目录, 以及每个文件的大小、行数和内容哈希 (SHA-256).
+ * <p>
+ * 由 {@link #scan} 一次性建立: 遍历一次目录树, 然后并行地把每个文件映射到内存,
+ * 同一遍扫描中既统计换行符又计算哈希. 路径均为相对项目根目录、以 / 分隔.
+ */
+public final class ProjectManifest {
+    // 每次映射的窗口大小, 大文件分段扫描
+    private static final long WINDOW = 64L << 20;
+
+    public record Entry(String path, long size, int lines, String hash) {
+        public String name() {
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+
+        public boolean isSource() {
+            return path.endsWith(".c") /* || path.endsWith(".cpp") */;
+        }
+
+        public boolean isHeader() {
+            return SlicingService.isHeader(path);
+        }
+    }
+
+    @Getter
+    private final String projectName;
+    @Getter
+    private final List<String> directories;
+    // 按路径排序
+    @Getter
+    private final List<Entry> files;
+    private final Map<String, Entry> byPath;
+
+    ProjectManifest(String projectName, List<String> directories, List<Entry> files) {
+        this.projectName = projectName;
+        this.directories = List.copyOf(directories);
+        this.files = files.stream().sorted(Comparator.comparing(Entry::path)).toList();
+        this.byPath = new HashMap<>(files.size() * 2);
+        this.files.forEach(entry -> byPath.put(entry.path(), entry));
+    }
+
+    public static ProjectManifest scan(Path projectDir, String projectName, ExecutorService executor)
+            throws IOException, InterruptedException {
+        List<String> directories = new ArrayList<>();
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(projectDir)) {
+            walk.forEach(path -> {
+                if (Files.isDirectory(path)) {
+                    directories.add(relative(projectDir, path));
+                } else if (Files.isRegularFile(path)) {
+                    paths.add(path);
+                }
+            });
+        }
+
+        List<Future<Entry>> futures = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            String relative = relative(projectDir, path);
+            futures.add(executor.submit(() -> scanFile(path, relative)));
+        }
+        List<Entry> files = new ArrayList<>(paths.size());
+        try {
+            for (Future<Entry> future : futures) {
+                files.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("Failed to scan " + projectDir, e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return new ProjectManifest(projectName, directories, files);
+    }
+
+    static Entry scanFile(Path path, String relative) throws IOException {
+        MessageDigest digest = sha256();
+        long newlines = 0;
+        byte last = '\n';
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            for (long position = 0; position < size; position += WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(WINDOW, size - position));
+                int limit = window.limit();
+                for (int i = 0; i < limit; i++) {
+                    if (window.get(i) == '\n') {
+                        newlines++;
+                    }
+                }
+                last = window.get(limit - 1);
+                digest.update(window);
+            }
+        }
+        // 最后一行没有换行符时也算一行, 与 SourceFile 一致
+        long lines = newlines + (last == '\n' ? 0 : 1);
+        return new Entry(relative, size, (int) Math.min(lines, Integer.MAX_VALUE),
+                HexFormat.of().formatHex(digest.digest()));
+    }
+
+    public Entry get(String path) {
+        return byPath.get(path);
+    }
+
+    /** 需要编译的 C 编译单元 */
+    public List<Entry> sources() {
+        return files.stream().filter(Entry::isSource).toList();
+    }
+
+    public long totalSourceLines() {
+        return files.stream().filter(Entry::isSource).mapToLong(Entry::lines).sum();
+    }
+
+    /** 所有头文件的路径和内容的摘要, 任一头文件变化都会改变它 */
+    public byte[] headerDigest() {
+        MessageDigest digest = sha256();
+        files.stream().filter(Entry::isHeader).forEach(entry -> {
+            digest.update(entry.path().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(entry.hash().getBytes(StandardCharsets.US_ASCII));
+        });
+        return HexFormat.of().formatHex(digest.digest()).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String relative(Path root, Path path) {
+        return root.relativize(path).toString().replace("\\", "/");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
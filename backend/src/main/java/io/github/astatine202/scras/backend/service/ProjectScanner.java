@@ -0,0 +1,42 @@
+package io.github.astatine202.scras.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 建立并缓存工作区的 {@link ProjectManifest}. 上传完成后扫描一次,
+ * 文件树、行数统计、编译单元列表和编译缓存键都取自清单, 不再各自遍历目录.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProjectScanner {
+    @Qualifier("ingestExecutor")
+    private final ExecutorService ingestExecutor;
+    private final AnalysisMetrics metrics;
+
+    /** 扫描项目目录并替换工作区中的清单, 项目文件改动后需重新调用 */
+    @SneakyThrows
+    public ProjectManifest scan(Workspace workspace, String projectName) {
+        ProjectManifest manifest = metrics.stage("ingest", () -> ProjectManifest.scan(
+                workspace.getProjectDir(projectName), projectName, ingestExecutor));
+        workspace.setManifest(manifest);
+        log.info("manifest={} files={} sources={}", projectName, manifest.getFiles().size(),
+                manifest.sources().size());
+        return manifest;
+    }
+
+    /** 工作区中已有该项目的清单时直接返回, 否则扫描 */
+    public ProjectManifest manifest(Workspace workspace, String projectName) {
+        ProjectManifest manifest = workspace.getManifest();
+        if (manifest != null && manifest.getProjectName().equals(projectName)) {
+            return manifest;
+        }
+        return scan(workspace, projectName);
+    }
+}
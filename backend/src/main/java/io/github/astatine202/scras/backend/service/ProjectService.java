@@ -1,27 +1,30 @@
 package io.github.astatine202.scras.backend.service;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
+@RequiredArgsConstructor
 public class ProjectService {
+    private final ArchiveService archiveService;
+    private final ProjectScanner projectScanner;
 
-    public Map<String, Object> handleProjectUpload(MultipartFile[] files) throws IOException {
+    public Map<String, Object> handleProjectUpload(Workspace workspace, MultipartFile[] files) throws IOException {
         String originalprojectname = files[0].getOriginalFilename();
         if (originalprojectname == null) {
             throw new IOException("File original filename is null");
         }
         String projectName = originalprojectname.split("/")[0];
-        Path projectDir = Paths.get("temp/input", projectName);
+        Path projectDir = workspace.getProjectDir(projectName).normalize();
         Files.createDirectories(projectDir);
 
         for (MultipartFile file : files) {
@@ -29,40 +32,36 @@ public class ProjectService {
             if (originalFilename == null) {
                 throw new IOException("File original filename is null");
             }
-            Path filePath = projectDir.resolve(originalFilename.substring(projectName.length() + 1));
+            Path filePath = projectDir.resolve(originalFilename.substring(projectName.length() + 1)).normalize();
+            if (!filePath.startsWith(projectDir)) {
+                throw new SecurityException("Illegal file path: " + originalFilename);
+            }
             Files.createDirectories(filePath.getParent());
-            Files.write(filePath, file.getBytes());
+            // 流式写入磁盘, 不把整个文件读入堆内存
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, filePath, StandardCopyOption.REPLACE_EXISTING);
+            }
         }
 
-        Map<String, Object> result = Map.of(
-                "fileTree", buildFileTree(projectDir),
-                "allTotalLineCount", calculateTotalLineCount(projectDir));
-
-        return result;
+        return describeProject(workspace, projectName);
     }
 
-    private List<Map<String, String>> buildFileTree(Path dir) throws IOException {
-        try (Stream<Path> paths = Files.walk(dir)) {
-            return paths.filter(Files::isRegularFile)
-                    .map(path -> Map.of(
-                            "name", path.getFileName().toString(),
-                            "path", dir.relativize(path).toString()))
-                    .collect(Collectors.toList());
-        }
+    // 压缩包 (zip / tar / tar.gz) 上传, 边接收边解压到工作区
+    public Map<String, Object> handleArchiveUpload(Workspace workspace, InputStream in, String archiveName)
+            throws IOException {
+        String projectName = archiveService.extract(in, archiveName, workspace.getInputDir());
+        return describeProject(workspace, projectName);
     }
 
-    private int calculateTotalLineCount(Path dir) throws IOException {
-        try (Stream<Path> paths = Files.walk(dir)) {
-            return paths.filter(Files::isRegularFile)
-                    .filter(path -> path.toString().endsWith(".c") /*|| path.toString().endsWith(".cpp")*/)
-                    .mapToInt(path -> {
-                        try {
-                            return Files.readAllLines(path).size();
-                        } catch (IOException e) {
-                            return 0;
-                        }
-                    })
-                    .sum();
-        }
+    public Map<String, Object> describeProject(Workspace workspace, String projectName) {
+        ProjectManifest manifest = projectScanner.scan(workspace, projectName);
+        List<Map<String, String>> fileTree = manifest.getFiles().stream()
+                .map(entry -> Map.of("name", entry.name(), "path", entry.path()))
+                .toList();
+        return Map.of(
+                "workspaceId", workspace.getId(),
+                "projectName", projectName,
+                "fileTree", fileTree,
+                "allTotalLineCount", manifest.totalSourceLines());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,213 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.config.ResultCacheProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 整个项目分析结果的缓存, 以项目内容哈希 + 工具链版本为键, 相同的项目再次上传时跳过
+ * 编译、链接和切片, 直接复用切片存储和链接后的 IR.
+ * <p>
+ * 磁盘层每个条目一个目录 (slices.bin 和链接后的 IR), 按总大小做 LRU 淘汰, 重启后重建索引;
+ * 文本 IR 中的源码根目录与 {@link IrCache} 一样替换为占位符. 内存层保存已打开的切片存储和
+ * 反向索引, 按权重 (存储文件大小 + 索引占用) 做 LRU 淘汰, 命中时无需重新打开存储和建立索引.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@EnableConfigurationProperties(ResultCacheProperties.class)
+public class ResultCache {
+    // 条目格式变化时递增, 参与缓存键
+    public static final String FORMAT = "2";
+    // 条目中链接后的 IR, 文本或位码由缓存键中的编译参数区分
+    private static final String FILE_IR = "linked.ir";
+    private static final String ROOT_PLACEHOLDER = "@@SCRAS_SOURCE_ROOT@@";
+
+    private final ResultCacheProperties properties;
+
+    /** 命中的分析结果; irPath 指向缓存中的 IR, 需经 {@link #restoreIr} 复制到工作区 */
+    public record Result(SliceStore sliceStore, LineIndex lineIndex, Path irPath) {
+    }
+
+    private record Loaded(Result result, long weight) {
+    }
+
+    // 访问顺序的索引: key -> 条目大小
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskSize;
+    private final LinkedHashMap<String, Loaded> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryWeight;
+
+    @PostConstruct
+    @SneakyThrows
+    public void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Files.createDirectories(properties.getDir());
+        // 按最后访问时间重建 LRU 顺序, 未完成的临时目录直接删除
+        Map<Path, FileTime> entries = new HashMap<>();
+        try (Stream<Path> shards = Files.list(properties.getDir())) {
+            for (Path shard : shards.filter(Files::isDirectory).toList()) {
+                try (Stream<Path> dirs = Files.list(shard)) {
+                    for (Path dir : dirs.toList()) {
+                        if (Files.isRegularFile(dir.resolve(Workspace.FILE_SLICES))
+                                && Files.isRegularFile(dir.resolve(FILE_IR))) {
+                            entries.put(dir, Files.getLastModifiedTime(dir));
+                        } else {
+                            FileUtils.deleteQuietly(dir.toFile());
+                        }
+                    }
+                }
+            }
+        }
+        synchronized (this) {
+            entries.keySet().stream()
+                    .sorted(Comparator.comparing(entries::get))
+                    .forEach(dir -> {
+                        long size = FileUtils.sizeOfDirectory(dir.toFile());
+                        disk.put(dir.getFileName().toString(), size);
+                        diskSize += size;
+                    });
+            evictDisk();
+        }
+        log.info("Result cache loaded: {} entries, {} bytes", disk.size(), diskSize);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /** 先查内存层, 再查磁盘层; 磁盘层命中时打开切片存储并建立反向索引, 放入内存层 */
+    public Result fetch(String key) {
+        synchronized (this) {
+            Loaded loaded = memory.get(key);
+            if (loaded != null) {
+                // 同时刷新磁盘层的访问顺序
+                disk.get(key);
+                return loaded.result();
+            }
+            if (disk.get(key) == null) {
+                return null;
+            }
+        }
+        Path dir = entryPath(key);
+        try {
+            Path slicesPath = dir.resolve(Workspace.FILE_SLICES);
+            SliceStore store = SliceStore.open(slicesPath);
+            LineIndex lineIndex = LineIndex.build(store);
+            Result result = new Result(store, lineIndex, dir.resolve(FILE_IR));
+            Files.setLastModifiedTime(dir, FileTime.fromMillis(System.currentTimeMillis()));
+            Loaded loaded = new Loaded(result, Files.size(slicesPath) + lineIndex.memorySize());
+            synchronized (this) {
+                Loaded previous = memory.put(key, loaded);
+                memoryWeight += loaded.weight() - (previous == null ? 0 : previous.weight());
+                evictMemory();
+            }
+            return result;
+        } catch (IOException e) {
+            // 条目可能刚被淘汰, 按未命中处理
+            log.debug("Result cache entry {} unreadable", key, e);
+            remove(key);
+            return null;
+        }
+    }
+
+    /** 把缓存中的 IR 写入 target, 占位符替换为 sourceRoot; 失败时移除条目 */
+    public boolean restoreIr(String key, Result result, Path target, String sourceRoot) {
+        try {
+            IrCache.relocate(result.irPath(), target, ROOT_PLACEHOLDER, sourceRoot);
+            return true;
+        } catch (IOException e) {
+            log.debug("Result cache entry {} unreadable", key, e);
+            remove(key);
+            return false;
+        }
+    }
+
+    /** 存入一次完整分析的切片存储和链接后的 IR */
+    public void store(String key, Path slicesPath, Path irPath, String sourceRoot) {
+        Path dir = entryPath(key);
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir.getParent());
+            tmp = Files.createTempDirectory(dir.getParent(), key + ".tmp");
+            Files.copy(slicesPath, tmp.resolve(Workspace.FILE_SLICES));
+            IrCache.relocate(irPath, tmp.resolve(FILE_IR), sourceRoot, ROOT_PLACEHOLDER);
+            long size = FileUtils.sizeOfDirectory(tmp.toFile());
+            synchronized (this) {
+                if (disk.containsKey(key)) {
+                    return;
+                }
+                Files.move(tmp, dir, StandardCopyOption.ATOMIC_MOVE);
+                tmp = null;
+                disk.put(key, size);
+                diskSize += size;
+                evictDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store result cache entry {}", key, e);
+        } finally {
+            if (tmp != null) {
+                FileUtils.deleteQuietly(tmp.toFile());
+            }
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = disk.remove(key);
+        if (size != null) {
+            diskSize -= size;
+        }
+        Loaded loaded = memory.remove(key);
+        if (loaded != null) {
+            memoryWeight -= loaded.weight();
+        }
+        FileUtils.deleteQuietly(entryPath(key).toFile());
+    }
+
+    // 调用方持有锁; 已打开的存储仍可被正在使用它的工作区读取
+    private void evictDisk() {
+        long maxSize = properties.getMaxSize().toBytes();
+        Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+        while (diskSize > maxSize && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            FileUtils.deleteQuietly(entryPath(eldest.getKey()).toFile());
+            diskSize -= eldest.getValue();
+            it.remove();
+            Loaded loaded = memory.remove(eldest.getKey());
+            if (loaded != null) {
+                memoryWeight -= loaded.weight();
+            }
+        }
+    }
+
+    // 调用方持有锁
+    private void evictMemory() {
+        long maxWeight = properties.getMemoryMaxSize().toBytes();
+        Iterator<Map.Entry<String, Loaded>> it = memory.entrySet().iterator();
+        while (memoryWeight > maxWeight && it.hasNext()) {
+            memoryWeight -= it.next().getValue().weight();
+            it.remove();
+        }
+    }
+
+    public synchronized boolean inMemory(String key) {
+        return memory.containsKey(key);
+    }
+
+    private Path entryPath(String key) {
+        return properties.getDir().resolve(key.substring(0, 2)).resolve(key);
+    }
+}
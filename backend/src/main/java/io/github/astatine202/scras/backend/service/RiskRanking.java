@@ -0,0 +1,71 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.model.FunctionRisk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 按风险分数从高到低的函数排名.
+ * <p>
+ * 建立时只做 O(n) 的堆化; 分页查询时才从堆顶依次取出, 已取出的部分按序缓存,
+ * 因此只查看前几页时不需要对全部函数排序, 之后的请求也不会重复排序.
+ */
+public final class RiskRanking {
+    // 分数高者优先, 同分按函数名
+    private static final Comparator<FunctionRisk> ORDER = Comparator.comparingDouble(FunctionRisk::getScore)
+            .reversed()
+            .thenComparing(FunctionRisk::getFunction);
+
+    private final FunctionRisk[] heap;
+    private int heapSize;
+    private final List<FunctionRisk> sorted;
+
+    public RiskRanking(Collection<FunctionRisk> risks) {
+        this.heap = risks.toArray(FunctionRisk[]::new);
+        this.heapSize = heap.length;
+        this.sorted = new ArrayList<>(heap.length);
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    public int size() {
+        return heap.length;
+    }
+
+    public synchronized List<FunctionRisk> page(int offset, int limit) {
+        int end = (int) Math.min((long) offset + limit, heap.length);
+        while (sorted.size() < end) {
+            sorted.add(poll());
+        }
+        return offset >= end ? List.of() : List.copyOf(sorted.subList(offset, end));
+    }
+
+    private FunctionRisk poll() {
+        FunctionRisk top = heap[0];
+        heap[0] = heap[--heapSize];
+        heap[heapSize] = null;
+        siftDown(0);
+        return top;
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int child = left + 1 < heapSize && ORDER.compare(heap[left + 1], heap[left]) < 0 ? left + 1 : left;
+            if (ORDER.compare(heap[child], heap[i]) >= 0) {
+                return;
+            }
+            FunctionRisk tmp = heap[i];
+            heap[i] = heap[child];
+            heap[child] = tmp;
+            i = child;
+        }
+    }
+}
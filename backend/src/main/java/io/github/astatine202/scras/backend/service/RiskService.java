@@ -0,0 +1,63 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.config.RiskProperties;
+import io.github.astatine202.scras.backend.model.FunctionRisk;
+import io.github.astatine202.scras.backend.model.NodeInfo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 函数风险评分: 调用图指标与切片大小按 {@link RiskProperties} 的权重加权.
+ * 每次分析只计算一次, 结果作为工作区产物缓存.
+ */
+@Service
+@RequiredArgsConstructor
+@EnableConfigurationProperties(RiskProperties.class)
+public class RiskService {
+    private static final String ARTIFACT_RISK = "risk";
+
+    private final RiskProperties properties;
+    private final CallGraphService callGraphService;
+    private final SlicingService slicingService;
+
+    public RiskRanking ranking(Workspace workspace) {
+        return workspace.artifact(ARTIFACT_RISK, () -> rank(
+                callGraphService.metrics(workspace), slicingService.maxSliceSizes(workspace)));
+    }
+
+    RiskRanking rank(Map<String, NodeInfo> nodes, Map<String, Integer> sliceSizes) {
+        // 各指标的最大值, 用于归一化
+        double maxDepth = 0, maxCallCount = 0, maxFanOut = 0, maxMccabe = 0, maxSliceSize = 0;
+        for (Map.Entry<String, NodeInfo> entry : nodes.entrySet()) {
+            NodeInfo node = entry.getValue();
+            maxDepth = Math.max(maxDepth, node.getDepth());
+            maxCallCount = Math.max(maxCallCount, node.getCallCount());
+            maxFanOut = Math.max(maxFanOut, node.getFanOut());
+            maxMccabe = Math.max(maxMccabe, node.getMccabeComplexity());
+            maxSliceSize = Math.max(maxSliceSize, sliceSizes.getOrDefault(entry.getKey(), 0));
+        }
+
+        List<FunctionRisk> risks = new ArrayList<>(nodes.size());
+        for (Map.Entry<String, NodeInfo> entry : nodes.entrySet()) {
+            NodeInfo node = entry.getValue();
+            int sliceSize = sliceSizes.getOrDefault(entry.getKey(), 0);
+            double score = properties.getDepth() * normalize(node.getDepth(), maxDepth)
+                    + properties.getCallCount() * normalize(node.getCallCount(), maxCallCount)
+                    + properties.getFanOut() * normalize(node.getFanOut(), maxFanOut)
+                    + properties.getMccabe() * normalize(node.getMccabeComplexity(), maxMccabe)
+                    + properties.getSliceSize() * normalize(sliceSize, maxSliceSize);
+            risks.add(new FunctionRisk(entry.getKey(), score, node.getDepth(), node.getCallCount(),
+                    node.getFanOut(), node.getMccabeComplexity(), sliceSize));
+        }
+        return new RiskRanking(risks);
+    }
+
+    private static double normalize(double value, double max) {
+        return max == 0 ? 0 : value / max;
+    }
+}
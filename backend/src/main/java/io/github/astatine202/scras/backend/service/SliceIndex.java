@@ -0,0 +1,192 @@
+package io.github.astatine202.scras.backend.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * llvm-slicing 前向切片结果 (output_Fwd.txt) 的内存索引.
+ * <p>
+ * 每行形如 {@code var@func {"path/a.c: [1, 2]", "path/b.c: [3]"}}, 全局变量没有 {@code @func}.
+ * 解析一次后按 (变量, 函数) 建立哈希索引, 每个文件对应一个有序去重的 int[] 行号数组.
+ */
+public class SliceIndex {
+    private static final int[] EMPTY = new int[0];
+
+    // "var@func" -> (文件 -> 行号)
+    private final Map<String, Map<String, int[]>> entries;
+
+    private SliceIndex(Map<String, Map<String, int[]>> entries) {
+        this.entries = entries;
+    }
+
+    public static String key(String var, String func) {
+        return var + "@" + (func == null ? "" : func);
+    }
+
+    /**
+     * @param projectName 非空时, 文件路径中 ".../projectName/" 及之前的前缀会被去掉
+     */
+    public static SliceIndex parse(Path fwdPath, String projectName) throws IOException {
+        Map<String, Map<String, IntList>> building = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(fwdPath)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parseLine(line, projectName, building);
+            }
+        }
+
+        Map<String, Map<String, int[]>> entries = new LinkedHashMap<>(building.size() * 2);
+        building.forEach((key, files) -> {
+            Map<String, int[]> result = new LinkedHashMap<>(files.size() * 2);
+            files.forEach((file, lines) -> result.put(file, lines.toSortedDistinctArray()));
+            entries.put(key, result);
+        });
+        return new SliceIndex(entries);
+    }
+
+    private static void parseLine(String line, String projectName, Map<String, Map<String, IntList>> building) {
+        int open = line.indexOf('{');
+        int close = line.lastIndexOf('}');
+        if (open < 0 || close < open) {
+            return;
+        }
+
+        // 条件名: '{' 之前最后一个空白分隔的记号
+        int end = open;
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && !Character.isWhitespace(line.charAt(start - 1))) {
+            start--;
+        }
+        if (start == end) {
+            return;
+        }
+        String criterion = line.substring(start, end);
+        int at = criterion.indexOf('@');
+        String key = at < 0 ? key(criterion, "") : key(criterion.substring(0, at), criterion.substring(at + 1));
+
+        Map<String, IntList> files = null;
+        int pos = open + 1;
+        while (true) {
+            int quote = line.indexOf('"', pos);
+            if (quote < 0 || quote > close) {
+                break;
+            }
+            int endQuote = line.indexOf('"', quote + 1);
+            if (endQuote < 0) {
+                break;
+            }
+            pos = endQuote + 1;
+
+            // "path: [1, 2, 3]"
+            int bracket = line.lastIndexOf(": [", endQuote);
+            if (bracket <= quote) {
+                continue;
+            }
+            String file = normalize(line.substring(quote + 1, bracket), projectName);
+            if (files == null) {
+                files = building.computeIfAbsent(key, k -> new LinkedHashMap<>());
+            }
+            IntList lines = files.computeIfAbsent(file, k -> new IntList());
+            int value = -1;
+            for (int i = bracket + 3; i < endQuote; i++) {
+                char c = line.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    value = (value < 0 ? 0 : value * 10) + (c - '0');
+                } else if (value >= 0) {
+                    lines.add(value);
+                    value = -1;
+                }
+            }
+        }
+    }
+
+    private static String normalize(String path, String projectName) {
+        path = path.trim();
+        if (projectName == null || projectName.isEmpty()) {
+            return path;
+        }
+        if (path.startsWith(projectName + "/")) {
+            return path.substring(projectName.length() + 1);
+        }
+        String marker = "/" + projectName + "/";
+        int idx = path.indexOf(marker);
+        return idx < 0 ? path : path.substring(idx + marker.length());
+    }
+
+    /** 查询某个切片条件, 不存在时返回空 Map */
+    public Map<String, int[]> get(String var, String func) {
+        return entries.getOrDefault(key(var, func), Collections.emptyMap());
+    }
+
+    /** 所有文件行号的并集 */
+    public int[] union(String var, String func) {
+        return mergeDistinct(get(var, func).values());
+    }
+
+    // 合并多个行号数组, 结果有序去重
+    static int[] mergeDistinct(Collection<int[]> arrays) {
+        if (arrays.isEmpty()) {
+            return EMPTY;
+        }
+        IntList all = new IntList();
+        arrays.forEach(all::addAll);
+        return all.toSortedDistinctArray();
+    }
+
+    public Map<String, Map<String, int[]>> entries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public static List<Integer> toList(int[] lines) {
+        return Arrays.stream(lines).boxed().toList();
+    }
+
+    public static Map<String, List<Integer>> toListMap(Map<String, int[]> files) {
+        Map<String, List<Integer>> result = new LinkedHashMap<>(files.size() * 2);
+        files.forEach((file, lines) -> result.put(file, toList(lines)));
+        return result;
+    }
+
+    // 避免装箱的可增长 int 数组
+    private static final class IntList {
+        private int[] data = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        void addAll(int[] values) {
+            if (size + values.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(size * 2, size + values.length));
+            }
+            System.arraycopy(values, 0, data, size, values.length);
+            size += values.length;
+        }
+
+        int[] toSortedDistinctArray() {
+            int[] sorted = Arrays.copyOf(data, size);
+            Arrays.sort(sorted);
+            int n = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (n == 0 || sorted[i] != sorted[n - 1]) {
+                    sorted[n++] = sorted[i];
+                }
+            }
+            return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package io.github.astatine202.scras.backend.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 切片结果的二进制存储 (output/slices.bin), 以只读内存映射打开, 查询时才解码对应记录.
+ * <p>
+ * 文件布局 (大端):
+ * <pre>
+ * 头部      magic, version, 文件数, 名字数, 条件数, 保留, 文件表/名字表/数据/索引的偏移
+ * 文件表    long[文件数 + 1] 各字符串起始位置, 之后是 UTF-8 字节
+ * 名字表    同上, 变量名和函数名共用 (全局变量的函数名为 "")
+ * 数据      每个条件一条记录: varint 文件数, 每个文件 varint 文件编号、行数和差分编码的行号
+ * 索引      按条件哈希排序的定长项: long 哈希, int 变量名编号, int 函数名编号, long 记录位置
+ * </pre>
+ * 超过 2GB 的文件按块映射, 实例可被多个线程并发查询.
+ */
+public final class SliceStore {
+    private static final int MAGIC = 0x53435253; // "SCRS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 56;
+    private static final int INDEX_ENTRY_SIZE = 24;
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    private final MappedByteBuffer[] chunks;
+    private final String[] files;
+    private final int criterionCount;
+    private final long namesOffset;
+    private final long indexOffset;
+
+    private SliceStore(MappedByteBuffer[] chunks) throws IOException {
+        this.chunks = chunks;
+        if (intAt(0) != MAGIC || intAt(4) != VERSION) {
+            throw new IOException("Not a slice store");
+        }
+        int fileCount = intAt(8);
+        this.criterionCount = intAt(16);
+        long filesOffset = longAt(24);
+        this.namesOffset = longAt(32);
+        this.indexOffset = longAt(48);
+        // 文件表很小, 打开时一次性读入
+        this.files = new String[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            files[i] = string(filesOffset, i);
+        }
+    }
+
+    public static SliceStore open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not a slice store: " + path);
+            }
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_BITS;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, 1L << CHUNK_BITS));
+            }
+            return new SliceStore(chunks);
+        }
+    }
+
+    /**
+     * 先写入同目录下的临时文件再原子替换: 重新分析时上一次的存储可能仍被映射并在查询中,
+     * 原地截断会让正在进行的查询读到被截掉的页.
+     */
+    public static void write(SliceIndex index, Path path) throws IOException {
+        Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            writeTo(index, tmp);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeTo(SliceIndex index, Path path) throws IOException {
+        Map<String, Integer> fileIds = new LinkedHashMap<>();
+        Map<String, Integer> nameIds = new LinkedHashMap<>();
+        int count = index.size();
+        long[] hashes = new long[count];
+        int[] vars = new int[count];
+        int[] funcs = new int[count];
+        long[] records = new long[count];
+
+        long filesOffset;
+        long namesOffset;
+        long dataOffset;
+        long indexOffset;
+        try (Output out = new Output(Files.newOutputStream(path))) {
+            out.skip(HEADER_SIZE);
+
+            // 字符串表位于数据区之前, 先收集所有文件名和名字
+            index.entries().forEach((key, fileLines) -> {
+                fileLines.keySet().forEach(file -> fileIds.putIfAbsent(file, fileIds.size()));
+                int at = key.indexOf('@');
+                nameIds.putIfAbsent(key.substring(0, at), nameIds.size());
+                nameIds.putIfAbsent(key.substring(at + 1), nameIds.size());
+            });
+            filesOffset = out.position();
+            out.writeStrings(fileIds.keySet());
+            namesOffset = out.position();
+            out.writeStrings(nameIds.keySet());
+
+            dataOffset = out.position();
+            int i = 0;
+            for (Map.Entry<String, Map<String, int[]>> entry : index.entries().entrySet()) {
+                String key = entry.getKey();
+                int at = key.indexOf('@');
+                String var = key.substring(0, at);
+                String func = key.substring(at + 1);
+                hashes[i] = hash(var, func);
+                vars[i] = nameIds.get(var);
+                funcs[i] = nameIds.get(func);
+                records[i] = out.position();
+                out.writeVarint(entry.getValue().size());
+                for (Map.Entry<String, int[]> file : entry.getValue().entrySet()) {
+                    int[] lines = file.getValue();
+                    out.writeVarint(fileIds.get(file.getKey()));
+                    out.writeVarint(lines.length);
+                    int previous = 0;
+                    for (int line : lines) {
+                        out.writeVarint(line - previous);
+                        previous = line;
+                    }
+                }
+                i++;
+            }
+
+            indexOffset = out.position();
+            Integer[] order = new Integer[count];
+            Arrays.setAll(order, n -> n);
+            Arrays.sort(order, Comparator.comparingLong(n -> hashes[n]));
+            for (int n : order) {
+                out.writeLong(hashes[n]);
+                out.writeInt(vars[n]);
+                out.writeInt(funcs[n]);
+                out.writeLong(records[n]);
+            }
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC).putInt(VERSION)
+                .putInt(fileIds.size()).putInt(nameIds.size()).putInt(count).putInt(0)
+                .putLong(filesOffset).putLong(namesOffset).putLong(dataOffset).putLong(indexOffset)
+                .flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    /** 条件数 */
+    public int size() {
+        return criterionCount;
+    }
+
+    /** 条件在索引中的位置, 不存在时返回 -1 */
+    public int find(String var, String func) {
+        if (func == null) {
+            func = "";
+        }
+        long hash = hash(var, func);
+        int low = 0;
+        int high = criterionCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = longAt(entry(mid));
+            if (value < hash) {
+                low = mid + 1;
+            } else if (value > hash) {
+                high = mid - 1;
+            } else {
+                // 哈希相同的项相邻, 逐个比对名字
+                int first = mid;
+                while (first > 0 && longAt(entry(first - 1)) == hash) {
+                    first--;
+                }
+                for (int i = first; i < criterionCount && longAt(entry(i)) == hash; i++) {
+                    if (var(i).equals(var) && func(i).equals(func)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    public String var(int criterion) {
+        return string(namesOffset, intAt(entry(criterion) + 8));
+    }
+
+    public String func(int criterion) {
+        return string(namesOffset, intAt(entry(criterion) + 12));
+    }
+
+    /** 文件 -> 有序去重的行号 */
+    public Map<String, int[]> get(int criterion) {
+        Cursor cursor = new Cursor(longAt(entry(criterion) + 16));
+        int fileCount = cursor.varint();
+        Map<String, int[]> result = new LinkedHashMap<>(fileCount * 2);
+        for (int f = 0; f < fileCount; f++) {
+            String file = files[cursor.varint()];
+            int[] lines = new int[cursor.varint()];
+            int line = 0;
+            for (int i = 0; i < lines.length; i++) {
+                line += cursor.varint();
+                lines[i] = line;
+            }
+            result.put(file, lines);
+        }
+        return result;
+    }
+
+    /** 各文件行数之和, 不解码行号 */
+    public int lineCount(int criterion) {
+        Cursor cursor = new Cursor(longAt(entry(criterion) + 16));
+        int fileCount = cursor.varint();
+        int total = 0;
+        for (int f = 0; f < fileCount; f++) {
+            cursor.varint();
+            int count = cursor.varint();
+            for (int i = 0; i < count; i++) {
+                cursor.varint();
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    /** 查询某个切片条件, 不存在时返回空 Map */
+    public Map<String, int[]> get(String var, String func) {
+        int criterion = find(var, func);
+        return criterion < 0 ? Collections.emptyMap() : get(criterion);
+    }
+
+    /** 所有文件行号的并集 */
+    public int[] union(String var, String func) {
+        return SliceIndex.mergeDistinct(get(var, func).values());
+    }
+
+    private long entry(int criterion) {
+        if (criterion < 0 || criterion >= criterionCount) {
+            throw new IndexOutOfBoundsException(criterion);
+        }
+        return indexOffset + (long) criterion * INDEX_ENTRY_SIZE;
+    }
+
+    private String string(long table, int id) {
+        long start = longAt(table + 8L * id);
+        long end = longAt(table + 8L * (id + 1));
+        byte[] bytes = new byte[(int) (end - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = byteAt(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte byteAt(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].get((int) (pos & CHUNK_MASK));
+    }
+
+    private int intAt(long pos) {
+        int offset = (int) (pos & CHUNK_MASK);
+        MappedByteBuffer chunk = chunks[(int) (pos >>> CHUNK_BITS)];
+        if (offset + 4 <= chunk.limit()) {
+            return chunk.getInt(offset);
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (byteAt(pos + i) & 0xff);
+        }
+        return value;
+    }
+
+    private long longAt(long pos) {
+        int offset = (int) (pos & CHUNK_MASK);
+        MappedByteBuffer chunk = chunks[(int) (pos >>> CHUNK_BITS)];
+        if (offset + 8 <= chunk.limit()) {
+            return chunk.getLong(offset);
+        }
+        return ((long) intAt(pos) << 32) | (intAt(pos + 4) & 0xffffffffL);
+    }
+
+    // FNV-1a, 变量名与函数名之间以 0 分隔
+    private static long hash(String var, String func) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : var.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        hash *= 0x100000001b3L;
+        for (byte b : func.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private final class Cursor {
+        private long pos;
+
+        Cursor(long pos) {
+            this.pos = pos;
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = byteAt(pos++);
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    // 记录写入位置的缓冲输出
+    private static final class Output implements AutoCloseable {
+        private final OutputStream out;
+        private long position;
+
+        Output(OutputStream out) {
+            this.out = new BufferedOutputStream(out, 1 << 16);
+        }
+
+        long position() {
+            return position;
+        }
+
+        void skip(int count) throws IOException {
+            out.write(new byte[count]);
+            position += count;
+        }
+
+        void writeInt(int value) throws IOException {
+            out.write(value >>> 24);
+            out.write(value >>> 16);
+            out.write(value >>> 8);
+            out.write(value);
+            position += 4;
+        }
+
+        void writeLong(long value) throws IOException {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarint(int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+                position++;
+            }
+            out.write(value);
+            position++;
+        }
+
+        void writeStrings(Collection<String> strings) throws IOException {
+            List<byte[]> encoded = new ArrayList<>(strings.size());
+            strings.forEach(s -> encoded.add(s.getBytes(StandardCharsets.UTF_8)));
+            long start = position + 8L * (encoded.size() + 1);
+            for (byte[] bytes : encoded) {
+                writeLong(start);
+                start += bytes.length;
+            }
+            writeLong(start);
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+                position += bytes.length;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
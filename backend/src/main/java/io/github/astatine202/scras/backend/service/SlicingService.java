@@ -1,445 +1,556 @@
 package io.github.astatine202.scras.backend.service;
 
-import lombok.Data;
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+import io.github.astatine202.scras.backend.model.LineRange;
+import io.github.astatine202.scras.backend.model.SliceBatchResult;
+import io.github.astatine202.scras.backend.model.SliceCriterion;
+import io.github.astatine202.scras.backend.toolchain.IrFormat;
+import io.github.astatine202.scras.backend.toolchain.ToolCommand;
+import io.github.astatine202.scras.backend.toolchain.ToolchainExecutor;
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.context.annotation.Scope;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
-import java.util.regex.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.*;
 
 @Service
-@Scope("prototype")
 @Slf4j
+@RequiredArgsConstructor
 public class SlicingService {
-    private static final String IMAGE = "nuptzyz/llvm-slicing";
+    private static final String CLANG = "clang";
     private static final String LLVM_SLICING = "llvm-slicing";
-    private static final String LLVM_LINK = "llvm-link-3.3";
-
-    private final String TEMP = "temp";
-    private static final String INPUT = "input";
-    private static final String OUTPUT = "output";
-    private static final String BUFFER = "buffer";
-    private final String PATH_INPUT = Paths.get(TEMP, INPUT).toString();
-    private final String PATH_OUTPUT = Paths.get(TEMP, OUTPUT).toString();
-    private final String PATH_BUFFER = Paths.get(TEMP, BUFFER).toString();
-
-    private static final String FILE_LL = "output.ll";
-    private static final String FILE_FWD = "output_Fwd.txt";
-    private static final String FILE_DOT = "callgraph.dot";
-
-    private final Path LLPATH = Paths.get(PATH_OUTPUT, FILE_LL);
-    private final Path FWDPATH = Paths.get(PATH_OUTPUT, FILE_FWD);
-    private final Path DOTPATH = Paths.get(PATH_OUTPUT, FILE_DOT);
-    private final Path CFGPATH = Paths.get(PATH_OUTPUT, "cfg");
-
-    private static final Pattern LINE_PATTERN = Pattern
-            .compile("(\\w+)(?:@(\\w+))?\\s+\\{\".*?: \\[(.*?)\\]\"}");
-    private static final Pattern MULTIFILE_PATTERN = Pattern.compile(
-            "(\\w+)(?:@(\\w+))?\\s+\\{([^}]+)\\}",
-            Pattern.DOTALL);
-
-    @Data
-    private static class SliceInfo {
-        private final String var;
-        private final String func;
-        private final Map<String, List<Integer>> results;
+    private static final String LLVM_LINK = "llvm-link";
+    private static final String LLVM_DIS = "llvm-dis";
+    private static final List<String> SLICING_FLAGS = List.of("-d", "Fwd");
+    // 分析流水线各阶段, 用于进度上报
+    public static final String STAGE_COMPILE = "compileToLLVM";
+    public static final String STAGE_LINK = "llvm_link";
+    public static final String STAGE_SLICE = "runSlicingTool";
+    public static final String STAGE_PARSE = "fwdParser";
+    public static final String STAGE_RESULT_CACHE = "resultCache";
+    public static final String STAGE_WAIT = "waitIdentical";
+    // 按需生成的文本 IR (位码流水线下用于调试)
+    private static final String ARTIFACT_TEXT_IR = "textIr";
+
+    // 批量查询中表示任意变量 / 任意函数
+    public static final String WILDCARD = "*";
+
+    private static final Set<String> HEADER_SUFFIXES = Set.of(".h", ".hh", ".hpp", ".inc", ".def");
+
+    @Qualifier("compileExecutor")
+    private final ExecutorService compileExecutor;
+    private final ToolchainExecutor toolchain;
+    private final ToolchainProperties toolchainProperties;
+    private final IrCache irCache;
+    private final AnalysisMetrics metrics;
+    private final ProjectScanner projectScanner;
+    private final ResultCache resultCache;
+    // 结果缓存键 -> 正在运行的流水线
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    private Path getOutputPath(Workspace workspace, String filename, String suffix) {
+        return workspace.getOutputDir().resolve(
+                filename.replaceFirst("\\.[^.]+$", suffix));
     }
 
-    @Data
-    private static class NodeInfo {
-        private final String nodeId;
-        private final int depth;
-        private final int callCount;
-        private final int fanOut;
-        private final int mccabeComplexity;
+    private IrFormat irFormat() {
+        return toolchainProperties.getIrFormat();
     }
 
-    private final Map<String, NodeInfo> nodeMap = new HashMap<>();
-    private final Map<String, Set<String>> callGraph = new HashMap<>();
+    // 单文件的完整分析流程
+    @SneakyThrows
+    public void analyzeFile(Workspace workspace, String filename, AnalysisListener listener) {
+        resetArtifacts(workspace);
+        Path inputPath = workspace.getInputFile(filename);
+        Path irPath = workspace.getIrPath(irFormat());
+        listener.onProgress(STAGE_COMPILE, filename, 0, 1);
+        compileToLLVM(inputPath, irPath);
+        metrics.output(irFormat().suffix().substring(1), irPath);
+        listener.onProgress(STAGE_COMPILE, filename, 1, 1);
+        runSlicingTool(workspace, listener);
+
+        listener.onProgress(STAGE_PARSE, null, 0, 1);
+        index(workspace, parse(workspace, null));
+        listener.onProgress(STAGE_PARSE, null, 1, 1);
+    }
 
-    private Path getOutputPath(String filename, String suffix) {
-        return Paths.get(PATH_OUTPUT,
-                filename.replaceFirst("\\.[^.]+$", suffix));
+    // 多文件项目的完整分析流程
+    @SneakyThrows
+    public void analyzeProject(Workspace workspace, String projectName, AnalysisListener listener) {
+        resetArtifacts(workspace);
+        workspace.setProjectName(projectName);
+        analyzeOnce(workspace, projectName, listener, () -> {
+            processProject(workspace, projectName, listener);
+            runSlicingTool(workspace, listener);
+
+            listener.onProgress(STAGE_PARSE, null, 0, 1);
+            index(workspace, parse(workspace, projectName));
+            listener.onProgress(STAGE_PARSE, null, 1, 1);
+        });
     }
 
+    // 基线工作区已分析时, 对其修订版只重新处理改动部分
     @SneakyThrows
-    public List<Integer> processSlice(String filename, String var, String func) {
-        Path inputPath = Paths.get(PATH_INPUT, filename);
-        if (!Files.exists(FWDPATH)) {
-            compileToLLVM(inputPath, LLPATH);
-            runSlicingTool(OUTPUT, FILE_LL);
+    public void analyzeRevision(Workspace base, Workspace workspace, String projectName,
+            Set<String> changedFiles, AnalysisListener listener) {
+        if (!isAnalyzed(base) || base.getProjectName() == null) {
+            throw new IllegalStateException("Base workspace " + base.getId() + " has no analysed project");
         }
-        return parseSliceResult(FWDPATH, var, func);
+        resetArtifacts(workspace);
+        workspace.setProjectName(projectName);
+        analyzeOnce(workspace, projectName, listener, () -> {
+            processRevision(base, workspace, projectName, changedFiles, listener);
+            runSlicingTool(workspace, listener);
+
+            listener.onProgress(STAGE_PARSE, null, 0, 1);
+            index(workspace, parse(workspace, projectName));
+            listener.onProgress(STAGE_PARSE, null, 1, 1);
+        });
     }
 
-    @SneakyThrows
-    public Map<String, List<Integer>> processSlice(String fileName,
-            String var, String func, String projectName) {
-        if (!Files.exists(FWDPATH)) {
-            processProject(projectName);
-            runSlicingTool(OUTPUT, FILE_LL);
-            fwdParser(FWDPATH, projectName);
+    @FunctionalInterface
+    interface Pipeline {
+        void run() throws Exception;
+    }
+
+    /**
+     * 内容相同的项目 (结果缓存键相同) 同时只运行一条流水线: 先到的分析执行 pipeline 并写入结果缓存,
+     * 其余分析等待它结束后从缓存取得结果; 它失败或被取消时, 等待者中的一个重新执行.
+     * 同一工作区的重复请求已由 {@link AnalysisJobService#submit} 合并为同一个任务.
+     */
+    void analyzeOnce(Workspace workspace, String projectName, AnalysisListener listener,
+            Pipeline pipeline) throws Exception {
+        if (!resultCache.isEnabled()) {
+            pipeline.run();
+            return;
+        }
+        String key = resultKey(workspace, projectName);
+        while (!restoreResult(workspace, projectName, key, listener)) {
+            CompletableFuture<Void> flight = new CompletableFuture<>();
+            CompletableFuture<Void> running = inFlight.putIfAbsent(key, flight);
+            if (running == null) {
+                try {
+                    pipeline.run();
+                    storeResult(workspace, projectName, key);
+                    flight.complete(null);
+                } catch (Throwable e) {
+                    flight.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, flight);
+                }
+                return;
+            }
+            log.info("Waiting for a running analysis of identical project {} key={}", projectName, key);
+            listener.onProgress(STAGE_WAIT, null, 0, 1);
+            try {
+                running.get();
+            } catch (ExecutionException e) {
+                log.info("Identical analysis failed, analysing {} again", projectName);
+            }
+            listener.onProgress(STAGE_WAIT, null, 1, 1);
         }
-        return parseSliceResult(FWDPATH, var, func, projectName);
     }
 
-    @SneakyThrows
-    private void runSlicingTool(String dir, String filename) {
-        ProcessBuilder pb = new ProcessBuilder(
-                "docker", "run", "--rm", "-v",
-                Paths.get("").toAbsolutePath().toString() + ":/workspace",
-                IMAGE, LLVM_SLICING,
-                "/workspace/temp/" + dir + "/" + filename, "-d", "Fwd");
-
-        pb.redirectOutput(ProcessBuilder.Redirect.to(
-                new File(getOutputPath(filename, "_Fwd.txt").toString())));
-        pb.redirectError(ProcessBuilder.Redirect.to(
-                new File(getOutputPath(filename, "_Fwd_error.txt").toString())));
-        Process process = pb.start();
-        if (process.waitFor() != 0) {
-            throw new RuntimeException("Slicing failed");
+    // 项目中每个文件的路径和内容哈希, 加上编译 / 切片参数和工具链版本
+    private String resultKey(Workspace workspace, String projectName) {
+        ProjectManifest manifest = projectScanner.manifest(workspace, projectName);
+        List<byte[]> parts = new ArrayList<>(List.of(
+                ResultCache.FORMAT.getBytes(),
+                projectName.getBytes(),
+                String.join(" ", irFormat().clangFlags()).getBytes(),
+                String.join(" ", SLICING_FLAGS).getBytes(),
+                toolchain.version().getBytes()));
+        for (ProjectManifest.Entry entry : manifest.getFiles()) {
+            parts.add(entry.path().getBytes());
+            parts.add(entry.hash().getBytes());
         }
-        dot();
+        return IrCache.key(parts.toArray(byte[][]::new));
     }
 
-    @SneakyThrows
-    private List<Integer> parseSliceResult(Path resultPath, String var, String func) {
-        try (BufferedReader reader = Files.newBufferedReader(resultPath)) {
-            return reader.lines()
-                    .map(LINE_PATTERN::matcher)
-                    .filter(Matcher::find)
-                    .filter(m -> m.group(1).equals(var) && (m.group(2) == null ? "" : m.group(2)).equals(func))
-                    .flatMap(m -> Arrays.stream(m.group(3).split(",")))
-                    .map(String::trim)
-                    .map(Integer::parseInt)
-                    .toList();
+    // 相同内容的项目已分析过时直接复用切片存储和链接后的 IR, 跳过整个流水线
+    private boolean restoreResult(Workspace workspace, String projectName, String key, AnalysisListener listener) {
+        if (!resultCache.isEnabled()) {
+            return false;
+        }
+        listener.onProgress(STAGE_RESULT_CACHE, null, 0, 1);
+        String tier = resultCache.inMemory(key) ? "memory" : "disk";
+        ResultCache.Result result = resultCache.fetch(key);
+        String sourceRoot = toolchain.toolPath(workspace.getProjectDir(projectName));
+        boolean hit = result != null
+                && resultCache.restoreIr(key, result, workspace.getIrPath(irFormat()), sourceRoot);
+        metrics.resultCache(hit ? tier : "miss");
+        listener.onProgress(STAGE_RESULT_CACHE, null, 1, 1);
+        if (!hit) {
+            return false;
         }
+        log.info("result cache hit: project={} key={} tier={}", projectName, key, tier);
+        workspace.setLineIndex(result.lineIndex());
+        workspace.setSliceStore(result.sliceStore());
+        return true;
     }
 
-    @SneakyThrows
-    private Map<String, List<Integer>> parseSliceResult(Path resultPath,
-            String var, String func, String projectName) {
+    private void storeResult(Workspace workspace, String projectName, String key) {
+        if (resultCache.isEnabled()) {
+            resultCache.store(key, workspace.getSlicesPath(), workspace.getIrPath(irFormat()),
+                    toolchain.toolPath(workspace.getProjectDir(projectName)));
+        }
+    }
+
+    private SliceIndex parse(Workspace workspace, String projectName) throws IOException {
+        Path fwdPath = workspace.getFwdPath();
+        long start = System.nanoTime();
+        SliceIndex sliceIndex = SliceIndex.parse(fwdPath, projectName);
+        metrics.parsed("fwd", Files.size(fwdPath), System.nanoTime() - start);
+        return sliceIndex;
+    }
 
-        // 改进后的条目匹配正则（处理多层路径）
-        final Pattern entryPattern = Pattern.compile(
-                "\"([^\"]*?" + Pattern.quote(projectName) + "/)?([^\":]+?):\\s*\\[(\\d+(?:,\\s*\\d+)*)\\]\"");
-
-        try (BufferedReader reader = Files.newBufferedReader(resultPath)) {
-            return reader.lines()
-                    .map(MULTIFILE_PATTERN::matcher)
-                    .filter(Matcher::find)
-                    .filter(m -> m.group(1).equals(var) && (m.group(2) == null ? "" : m.group(2)).equals(func))
-                    // 处理大括号内的所有条目（改进分割方式）
-                    .flatMap(m -> Arrays.stream(m.group(3).split(",\\s*(?=\")")))
-                    .map(String::trim)
-                    .map(entry -> {
-                        Matcher entryMatcher = entryPattern.matcher(entry);
-                        return entryMatcher.find() ? entryMatcher : null;
-                    })
-                    .filter(Objects::nonNull)
-                    // 转换路径格式（支持多层路径结构）
-                    .collect(Collectors.groupingBy(
-                            m -> m.group(2).replaceAll(".*?(" + Pattern.quote(projectName) + "/)?", ""),
-                            Collectors.mapping(
-                                    m -> Arrays.stream(m.group(3).split(",\\s*"))
-                                            .map(Integer::parseInt)
-                                            .collect(Collectors.toList()),
-                                    Collectors.toList())))
-                    // 合并结果（增加去重和排序）
-                    .entrySet().stream()
-                    .collect(Collectors.toMap(
-                            Map.Entry::getKey,
-                            e -> e.getValue().stream()
-                                    .flatMap(List::stream)
-                                    .distinct()
-                                    .sorted()
-                                    .collect(Collectors.toList())));
+    // 写入切片存储并建立反向索引, 之后查询不再读取原始输出
+    private void index(Workspace workspace, SliceIndex sliceIndex) {
+        SliceStore sliceStore = fwdParser(workspace, sliceIndex);
+        workspace.setLineIndex(LineIndex.build(sliceStore));
+        workspace.setSliceStore(sliceStore);
+    }
+
+    // 重新分析后, 之前按需生成的调用图等产物已失效
+    private void resetArtifacts(Workspace workspace) {
+        workspace.getArtifacts().clear();
+        workspace.getNodeMap().clear();
+        workspace.setCallGraph(null);
+    }
+
+    public boolean isAnalyzed(Workspace workspace) {
+        return workspace.getSliceStore() != null;
+    }
+
+    // 查询只读取已完成的分析结果
+    private SliceStore requireStore(Workspace workspace) {
+        SliceStore sliceStore = workspace.getSliceStore();
+        if (sliceStore == null) {
+            throw new IllegalStateException("Analysis not finished for workspace " + workspace.getId());
         }
+        return sliceStore;
     }
 
-    @SneakyThrows
-    private void fwdParser(Path resultPath, String projectName) {
-        // 定义正则表达式匹配每一行条目
-        final Pattern entryPattern = Pattern.compile(
-                "(\\w+)(?:@(\\w+))?\\s+\\{(\".*?\".*?)}");
-
-        List<SliceInfo> sliceInfoList = new ArrayList<>();
-
-        System.out.println("Parsing slice result from: " + resultPath);
-
-        try (BufferedReader reader = Files.newBufferedReader(resultPath)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher = entryPattern.matcher(line);
-                if (matcher.find()) {
-                    String var = matcher.group(1); // 变量名
-                    String func = matcher.group(2) == null ? "" : matcher.group(2); // 函数名，若无则为空字符串
-                    String rawResults = matcher.group(3); // 原始结果内容
-
-                    // 解析结果内容
-                    Map<String, List<Integer>> results = Arrays.stream(rawResults.split(",\\s*(?=\")"))
-                            .map(String::trim)
-                            .map(entry -> entry.replaceAll("\"", "")) // 去掉双引号
-                            .map(entry -> entry.split(":\\s*\\[")) // 分割路径和行号
-                            .filter(parts -> parts.length == 2)
-                            .collect(Collectors.toMap(
-                                    parts -> parts[0].replaceFirst(".*/" + Pattern.quote(projectName) + "/", ""), // 过滤掉前缀
-                                    parts -> Arrays.stream(parts[1].replace("]", "").split(",\\s*")) // 解析行号
-                                            .map(Integer::parseInt)
-                                            .collect(Collectors.toList())));
-
-                    // 创建 SliceInfo 对象并添加到列表
-                    sliceInfoList.add(new SliceInfo(var, func, results));
-                }
+    public List<Integer> processSlice(Workspace workspace, String filename, String var, String func) {
+        return SliceIndex.toList(requireStore(workspace).union(var, func));
+    }
+
+    public Map<String, List<Integer>> processSlice(Workspace workspace, String fileName,
+            String var, String func, String projectName) {
+        return SliceIndex.toListMap(requireStore(workspace).get(var, func));
+    }
+
+    // 一次请求查询多个条件; 含通配符时只对切片数据做一次遍历
+    public SliceBatchResult processBatch(Workspace workspace, List<SliceCriterion> criteria, boolean union) {
+        SliceStore store = requireStore(workspace);
+        Set<String> exact = new HashSet<>();
+        Set<String> anyVariableIn = new HashSet<>();
+        Set<String> anyFunctionOf = new HashSet<>();
+        boolean all = false;
+        for (SliceCriterion criterion : criteria) {
+            String var = criterion.getVariable();
+            String func = criterion.getFunction() == null ? "" : criterion.getFunction();
+            if (WILDCARD.equals(var) && WILDCARD.equals(func)) {
+                all = true;
+            } else if (WILDCARD.equals(var)) {
+                anyVariableIn.add(func);
+            } else if (WILDCARD.equals(func)) {
+                anyFunctionOf.add(var);
+            } else {
+                exact.add(SliceIndex.key(var, func));
             }
         }
 
-        System.out.println("Parsed slice info: " + sliceInfoList.size() + " entries.");
-
-        // 将结果输出为 JSON 文件
-        ObjectMapper objectMapper = new ObjectMapper();
-        Path jsonFilePath = Paths.get(PATH_OUTPUT, "slice_info.json");
-        objectMapper.writerWithDefaultPrettyPrinter()
-                .writeValue(jsonFilePath.toFile(), sliceInfoList);
+        Map<String, Map<String, int[]>> matched = new LinkedHashMap<>();
+        if (all || !anyVariableIn.isEmpty() || !anyFunctionOf.isEmpty()) {
+            for (int i = 0; i < store.size(); i++) {
+                String var = store.var(i);
+                String func = store.func(i);
+                if (all || anyVariableIn.contains(func) || anyFunctionOf.contains(var)
+                        || exact.contains(SliceIndex.key(var, func))) {
+                    matched.put(SliceIndex.key(var, func), store.get(i));
+                }
+            }
+        } else {
+            for (SliceCriterion criterion : criteria) {
+                int i = store.find(criterion.getVariable(), criterion.getFunction());
+                if (i >= 0) {
+                    matched.putIfAbsent(SliceIndex.key(store.var(i), store.func(i)), store.get(i));
+                }
+            }
+        }
 
-        System.out.println("Slice info saved to: " + jsonFilePath);
+        Map<String, Map<String, List<Integer>>> results = new LinkedHashMap<>(matched.size() * 2);
+        Map<String, List<int[]>> byFile = new LinkedHashMap<>();
+        matched.forEach((key, files) -> {
+            results.put(key, SliceIndex.toListMap(files));
+            if (union) {
+                files.forEach((file, lines) -> byFile.computeIfAbsent(file, f -> new ArrayList<>()).add(lines));
+            }
+        });
+        Map<String, List<Integer>> unionByFile = null;
+        if (union) {
+            unionByFile = new LinkedHashMap<>(byFile.size() * 2);
+            for (Map.Entry<String, List<int[]>> entry : byFile.entrySet()) {
+                unionByFile.put(entry.getKey(), SliceIndex.toList(SliceIndex.mergeDistinct(entry.getValue())));
+            }
+        }
+        return new SliceBatchResult(results, unionByFile);
     }
 
-    // 多文件的处理
-    @SneakyThrows
-    public void processProject(String projectName) {
-        Path inputDir = Paths.get(PATH_INPUT, projectName);
-        Path bufferDir = Paths.get(PATH_BUFFER, projectName);
-        Files.createDirectories(bufferDir);
-
-        try (Stream<Path> paths = Files.walk(inputDir)) {
-            paths.filter(Files::isDirectory)
-                    .forEach(dir -> {
-                        try {
-                            Path targetDir = bufferDir.resolve(inputDir.relativize(dir));
-                            Files.createDirectories(targetDir);
-                        } catch (IOException e) {
-                            throw new UncheckedIOException(e);
-                        }
-                    });
+    // 前向切片经过给定行区间的所有条件, 按切片存储中的顺序返回
+    public List<SliceCriterion> affectedCriteria(Workspace workspace, List<LineRange> ranges) {
+        SliceStore store = requireStore(workspace);
+        LineIndex lineIndex = workspace.getLineIndex();
+        BitSet hits = new BitSet(store.size());
+        for (LineRange range : ranges) {
+            lineIndex.criteria(range.getFile(), range.getFrom(), range.getTo(), hits);
+        }
+        List<SliceCriterion> criteria = new ArrayList<>(hits.cardinality());
+        for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+            criteria.add(new SliceCriterion(store.var(i), store.func(i)));
         }
+        return criteria;
+    }
 
-        // 查找所有C文件并编译为LLVM IR
-        try (Stream<Path> files = Files.walk(inputDir)) {
-            files.filter(p -> p.toString().endsWith(".c")
-            /* || p.toString().endsWith(".cpp") */)
-                    .forEach(cFilePath -> {
-                        Path relative = inputDir.relativize(cFilePath);
-                        Path llFilePath = bufferDir.resolve(relative.toString()
-                                /* .replaceFirst("\\.cpp$", ".ll") */
-                                .replaceFirst("\\.c$", ".ll"));
-                        compileToLLVM(cFilePath, llFilePath);
-                    });
+    // 每个函数中各条件前向切片的最大行数
+    public Map<String, Integer> maxSliceSizes(Workspace workspace) {
+        SliceStore store = requireStore(workspace);
+        Map<String, Integer> sizes = new HashMap<>();
+        for (int i = 0; i < store.size(); i++) {
+            sizes.merge(store.func(i), store.lineCount(i), Math::max);
         }
+        return sizes;
+    }
 
-        llvm_link(bufferDir, LLPATH);
+    /**
+     * 链接后 IR 的文本形式, 用于调试. 文本流水线下即 output.ll; 位码流水线下首次请求时
+     * 由 llvm-dis 生成, 之后直接复用, 重新分析后失效.
+     */
+    public Path textIr(Workspace workspace) {
+        requireStore(workspace);
+        if (irFormat() == IrFormat.TEXT) {
+            return workspace.getLlPath();
+        }
+        return workspace.artifact(ARTIFACT_TEXT_IR, () -> metrics.stage(ARTIFACT_TEXT_IR, () -> {
+            ToolCommand command = ToolCommand.of(LLVM_DIS, toolchain.toolPath(workspace.getIrPath(irFormat())),
+                    "-o", toolchain.toolPath(workspace.getLlPath()));
+            if (toolchain.run(command) != 0) {
+                throw new RuntimeException("Failed to disassemble IR");
+            }
+            metrics.output(ARTIFACT_TEXT_IR, workspace.getLlPath());
+            return workspace.getLlPath();
+        }));
     }
 
     @SneakyThrows
-    private void compileToLLVM(Path cFilePath, Path llFilePath) {
-        Path c = Paths.get("/workspace", cFilePath.toString());
-        Path l = Paths.get("/workspace", llFilePath.toString());
-        ProcessBuilder pb = new ProcessBuilder(
-                "docker", "run", "--rm", "-v",
-                Paths.get("").toAbsolutePath() + ":/workspace",
-                IMAGE, "clang", "-emit-llvm", "-S", "-O0", "-g",
-                c.toString().replace("\\", "/"),
-                "-o",
-                l.toString().replace("\\", "/"));
-
-        Process process = pb.start();
-        if (process.waitFor() != 0) {
-            System.out.println("\n" + pb.command());
+    private void runSlicingTool(Workspace workspace, AnalysisListener listener) {
+        listener.onProgress(STAGE_SLICE, null, 0, 1);
+        Path irPath = workspace.getIrPath(irFormat());
+        String filename = irFormat().linkedName();
+        ToolCommand command = ToolCommand.of(LLVM_SLICING, toolchain.toolPath(irPath)).addArgs(SLICING_FLAGS)
+                .setOutput(ProcessBuilder.Redirect.to(getOutputPath(workspace, filename, "_Fwd.txt").toFile()))
+                .setError(ProcessBuilder.Redirect.to(getOutputPath(workspace, filename, "_Fwd_error.txt").toFile()));
+        if (toolchain.run(command) != 0) {
             throw new RuntimeException("Slicing failed");
         }
+        metrics.output("fwd", workspace.getFwdPath());
+        listener.onProgress(STAGE_SLICE, null, 1, 1);
     }
 
+    // 解析结果写入二进制存储后即可丢弃, 查询只读取映射文件中用到的记录
     @SneakyThrows
-    private void llvm_link(Path bufferDir, Path linkedLLPath) {
-        Path l = Paths.get("/workspace", linkedLLPath.toString());
-        List<String> llFiles = Files.walk(bufferDir)
-                .filter(p -> p.toString().endsWith(".ll"))
-                .map(p -> "/workspace/" + p.toString().replace("\\", "/"))
-                .collect(Collectors.toList());
-
-        List<String> command = new ArrayList<>(Arrays.asList(
-                "docker", "run", "--rm", "-v",
-                Paths.get("").toAbsolutePath() + ":/workspace",
-                IMAGE, LLVM_LINK, "-S"));
-        command.addAll(llFiles);
-        command.addAll(Arrays.asList("-o", l.toString().replace("\\", "/")));
-
-        ProcessBuilder pb = new ProcessBuilder(command);
-        Process process = pb.start();
-        if (process.waitFor() != 0) {
-            System.out.println("\n" + pb.command());
-            throw new RuntimeException("Slicing failed");
-        }
+    private SliceStore fwdParser(Workspace workspace, SliceIndex index) {
+        Path slicesPath = workspace.getSlicesPath();
+        SliceStore.write(index, slicesPath);
+        log.info("slices={} criteria={}", slicesPath, index.size());
+        metrics.output("slices", slicesPath);
+        return SliceStore.open(slicesPath);
     }
 
+    // 多文件的处理
     @SneakyThrows
-    private void dot() {
-        System.out.println("Generating call graph from: " + LLPATH);
-        // 调用 opt 工具生成CG & CFG
-        ProcessBuilder pb = new ProcessBuilder(
-                "docker", "run", "--rm", "-v",
-                Paths.get("").toAbsolutePath().toString() + ":/workspace",
-                IMAGE, "/bin/bash", "-c",
-                "cd /workspace && cd " + PATH_OUTPUT.replace("\\", "/")
-                        + " && opt -dot-callgraph " + FILE_LL + " -S -o " + FILE_LL
-                        + " && dot -Tpng " + FILE_DOT + " -o callgraph.png"
-                        + " && mkdir cfg && cd cfg && opt -dot-cfg ../" + FILE_LL);
-        Process process = pb.start();
-
-        // opt -dot-callgraph output.ll
-        // 会不可避免地在控制台进行标准输出, 从而造成缓冲区阻塞, 需要疏通
-        try (BufferedReader stdOut = new BufferedReader(new InputStreamReader(process.getInputStream()));
-                BufferedReader stdErr = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-                BufferedWriter outputWriter = Files.newBufferedWriter(Paths.get(PATH_OUTPUT, "process_stdout.log"),
-                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-                BufferedWriter errorWriter = Files.newBufferedWriter(Paths.get(PATH_OUTPUT, "process_stderr.log"),
-                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-
-            // 将标准输出写入文件
-            stdOut.lines().forEach(line -> {
-                try {
-                    outputWriter.write(line);
-                    outputWriter.newLine();
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            });
+    public void processProject(Workspace workspace, String projectName, AnalysisListener listener) {
+        Path inputDir = workspace.getProjectDir(projectName);
+        Path bufferDir = workspace.getProjectBufferDir(projectName);
+        ProjectManifest manifest = projectScanner.manifest(workspace, projectName);
+        mirrorDirectories(manifest, bufferDir);
+
+        // 清单中的所有C文件编译为LLVM IR (文本或位码)
+        List<ProjectManifest.Entry> cFiles = manifest.sources();
+        compileAll(inputDir, bufferDir, cFiles, manifest.headerDigest(), listener);
+
+        // 所有编译单元完成后才进行链接
+        listener.onProgress(STAGE_LINK, null, 0, 1);
+        llvm_link(bufferDir, cFiles, workspace.getIrPath(irFormat()));
+        listener.onProgress(STAGE_LINK, null, 1, 1);
+    }
 
-            // 将错误输出写入文件
-            stdErr.lines().forEach(line -> {
-                try {
-                    errorWriter.write(line);
-                    errorWriter.newLine();
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            });
+    // 修订版的增量处理: 未改动的编译单元直接复用基线版本的 IR, 只重新编译改动过的文件
+    @SneakyThrows
+    private void processRevision(Workspace base, Workspace workspace, String projectName,
+            Set<String> changedFiles, AnalysisListener listener) {
+        Path inputDir = workspace.getProjectDir(projectName);
+        Path bufferDir = workspace.getProjectBufferDir(projectName);
+        Path baseInputDir = base.getProjectDir(base.getProjectName());
+        Path baseBufferDir = base.getProjectBufferDir(base.getProjectName());
+        ProjectManifest manifest = projectScanner.manifest(workspace, projectName);
+        mirrorDirectories(manifest, bufferDir);
+
+        // 头文件改动会影响所有编译单元, 此时退化为全量编译;
+        // 位码中的源码路径无法改写, 项目名不同时切片结果中的路径无法对应, 同样全量编译
+        boolean headerChanged = changedFiles.stream().anyMatch(SlicingService::isHeader);
+        boolean reusable = irFormat().isRelocatable() || projectName.equals(base.getProjectName());
+        List<ProjectManifest.Entry> changedSources = new ArrayList<>();
+        int reused = 0;
+        for (ProjectManifest.Entry cFile : manifest.sources()) {
+            String relative = cFile.path();
+            Path baseIrPath = baseBufferDir.resolve(irFormat().unitName(relative));
+            if (!reusable || headerChanged || changedFiles.contains(relative) || !Files.isRegularFile(baseIrPath)) {
+                changedSources.add(cFile);
+            } else {
+                // 调试信息中的源码路径指向基线工作区, 改写为本工作区 (仅文本 IR)
+                IrCache.relocate(baseIrPath, bufferDir.resolve(irFormat().unitName(relative)),
+                        toolchain.toolPath(baseInputDir), toolchain.toolPath(inputDir));
+                reused++;
+            }
         }
+        log.info("revision={} base={} recompile={} reuse={}", workspace.getId(), base.getId(),
+                changedSources.size(), reused);
+        compileAll(inputDir, bufferDir, changedSources, manifest.headerDigest(), listener);
+
+        listener.onProgress(STAGE_LINK, null, 0, 1);
+        llvm_link(bufferDir, manifest.sources(), workspace.getIrPath(irFormat()));
+        listener.onProgress(STAGE_LINK, null, 1, 1);
+    }
 
-        if (process.waitFor() != 0) {
-            throw new RuntimeException("Failed to generate call graph");
+    private static void mirrorDirectories(ProjectManifest manifest, Path bufferDir) throws IOException {
+        for (String dir : manifest.getDirectories()) {
+            Files.createDirectories(bufferDir.resolve(dir));
         }
-        System.out.println("Call graph generated: " + DOTPATH);
-        // 解析生成的调用图
-        dotParser(DOTPATH);
-        System.out.println("Node Map:");
-        nodeMap.forEach((key, value) -> System.out.println(key + " = " + value));
     }
 
-    @SneakyThrows
-    private void dotParser(Path dotPath) {
-        Map<String, Integer> callCountMap = new HashMap<>();
-        Map<String, Integer> fanOutMap = new HashMap<>();
-        try (BufferedReader reader = Files.newBufferedReader(dotPath)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.matches("Node\\w+ \\[.*label=.*\\];")) {
-                    String nodeId = line.substring(0, line.indexOf(" "));
-                    String label = line.replaceAll(".*label=\"\\{(.*?)\\}\".*", "$1");
-                    nodeMap.put(label, new NodeInfo(nodeId, -1, 0, 0, 0));
-                } else if (line.matches("Node\\w+ -> Node\\w+;")) {
-                    String[] parts = line.split(" -> ");
-                    String fromNode = parts[0].trim();
-                    String toNode = parts[1].replace(";", "").trim();
-                    callGraph.computeIfAbsent(fromNode, k -> new HashSet<>()).add(toNode);
-                    callCountMap.put(toNode, callCountMap.getOrDefault(toNode, 0) + 1);
-                    fanOutMap.put(fromNode, fanOutMap.getOrDefault(fromNode, 0) + 1);
+    static boolean isHeader(String path) {
+        return HEADER_SUFFIXES.stream().anyMatch(path::endsWith);
+    }
+
+    // 并行编译所有编译单元, 任一文件失败则取消其余任务并抛出
+    private void compileAll(Path inputDir, Path bufferDir, List<ProjectManifest.Entry> cFiles, byte[] headerDigest,
+            AnalysisListener listener) throws InterruptedException {
+        listener.onProgress(STAGE_COMPILE, null, 0, cFiles.size());
+        String sourceRoot = toolchain.toolPath(inputDir);
+        // 位码无法改写源码路径, 只在项目名相同的上传之间复用
+        String pinnedProject = irFormat().isRelocatable() ? "" : inputDir.getFileName().toString();
+        // 编译线程沿用分析任务的日志上下文 (analysisId)
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        CompletionService<String> completionService = new ExecutorCompletionService<>(compileExecutor);
+        Map<Future<String>, String> futures = new LinkedHashMap<>();
+        for (ProjectManifest.Entry cFile : cFiles) {
+            Path cFilePath = inputDir.resolve(cFile.path());
+            Path irFilePath = bufferDir.resolve(irFormat().unitName(cFile.path()));
+            futures.put(completionService.submit(() -> {
+                if (context != null) {
+                    MDC.setContextMap(context);
+                }
+                try {
+                    compileCached(cFilePath, irFilePath, cFile, sourceRoot, pinnedProject, headerDigest);
+                } finally {
+                    MDC.clear();
+                }
+                return cFile.path();
+            }), cFile.path());
+        }
+
+        RuntimeException failure = null;
+        try {
+            for (int i = 0; i < futures.size() && failure == null; i++) {
+                Future<String> future = completionService.take();
+                try {
+                    listener.onProgress(STAGE_COMPILE, future.get(), i + 1, futures.size());
+                } catch (ExecutionException e) {
+                    failure = new RuntimeException("Compilation failed: " + futures.get(future), e.getCause());
                 }
             }
-        } catch (IOException e) {
-            throw new UncheckedIOException("Failed to parse dot file", e);
+        } finally {
+            futures.keySet().forEach(future -> future.cancel(true));
+        }
+        if (failure == null) {
+            return;
         }
 
-        Map<String, Integer> mccabeComplexityMap = calMcCabeComplexity(CFGPATH);
-
-        // 计算所有节点的深度、被调用数、扇出度和McCabe复杂度
-        for (Map.Entry<String, NodeInfo> entry : nodeMap.entrySet()) {
-            String functionName = entry.getKey();
-            NodeInfo nodeInfo = entry.getValue();
-            int depth = calculateDepth(nodeInfo.getNodeId(), 0, new HashSet<>());
-            int callCount = callCountMap.getOrDefault(nodeInfo.getNodeId(), 0);
-            int fanOut = fanOutMap.getOrDefault(nodeInfo.getNodeId(), 0);
-            int mccabeComplexity = mccabeComplexityMap.getOrDefault(functionName, 0);
-            nodeMap.put(functionName, new NodeInfo(
-                    nodeInfo.getNodeId(),
-                    depth, callCount, fanOut, mccabeComplexity));
+        // 收集其余已经失败的文件, 便于一次性定位问题
+        for (Map.Entry<Future<String>, String> entry : futures.entrySet()) {
+            Future<String> future = entry.getKey();
+            if (future.state() == Future.State.FAILED && failure.getCause() != future.exceptionNow()) {
+                failure.addSuppressed(new RuntimeException(
+                        "Compilation failed: " + entry.getValue(), future.exceptionNow()));
+            }
         }
+        throw failure;
     }
 
-    private int calculateDepth(String nodeId, int depth, Set<String> visited) {
-        // 检查是否已经访问过当前节点
-        if (visited.contains(nodeId)) {
-            // 如果存在循环调用，返回当前深度
-            return depth;
+    // 仅在缓存未命中时调用 clang; 源码内容以清单中的哈希参与缓存键,
+    // 头文件变化会影响所有编译单元, 其摘要也参与每个编译单元的缓存键
+    @SneakyThrows
+    private void compileCached(Path cFilePath, Path irFilePath, ProjectManifest.Entry cFile,
+            String sourceRoot, String pinnedProject, byte[] headerDigest) {
+        long start = System.nanoTime();
+        if (!irCache.isEnabled()) {
+            compileToLLVM(cFilePath, irFilePath);
+            metrics.compiled("disabled", System.nanoTime() - start);
+            return;
         }
-
-        // 将当前节点标记为已访问
-        visited.add(nodeId);
-
-        Set<String> children = callGraph.get(nodeId);
-        if (children == null || children.isEmpty()) {
-            return depth;
+        String key = IrCache.key(
+                cFile.hash().getBytes(),
+                cFile.path().getBytes(),
+                String.join(" ", irFormat().clangFlags()).getBytes(),
+                toolchain.version().getBytes(),
+                pinnedProject.getBytes(),
+                headerDigest);
+        if (irCache.fetch(key, irFilePath, sourceRoot)) {
+            metrics.compiled("hit", System.nanoTime() - start);
+            return;
         }
-
-        // 递归计算子节点的最大深度
-        return children.stream()
-                .mapToInt(child -> calculateDepth(child, depth + 1, visited))
-                .max()
-                .orElse(depth);
+        compileToLLVM(cFilePath, irFilePath);
+        irCache.store(key, irFilePath, sourceRoot);
+        metrics.compiled("miss", System.nanoTime() - start);
     }
 
     @SneakyThrows
-    public Map<String, Integer> calMcCabeComplexity(Path cfgFolderPath) {
-        Map<String, Integer> complexityMap = new HashMap<>();
-
-        // 遍历 cfg 文件夹中的所有 .dot 文件
-        try (Stream<Path> paths = Files.walk(cfgFolderPath)) {
-            List<Path> dotFiles = paths.filter(p -> p.toString().endsWith(".dot")).collect(Collectors.toList());
-
-            for (Path dotFile : dotFiles) {
-                String functionName = dotFile.getFileName().toString()
-                        .replace("cfg.", "")
-                        .replace(".dot", "");
-                int basicBlockCount = 0; // N
-                int edgeCount = 0; // E
-
-                try (BufferedReader reader = Files.newBufferedReader(dotFile)) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        line = line.trim();
-                        if (line.matches("Node\\w+ \\[.*\\];")) {
-                            basicBlockCount++;
-                        } else if (line.matches("Node\\w+(?::\\w+)? -> Node\\w+(?::\\w+)?;")) {
-                            edgeCount++;
-                        }
-                    }
-                }
-                // McCabe复杂度公式：E - N + 2P
-                int complexity = edgeCount - basicBlockCount + 2; // P = 1
-                complexityMap.put(functionName, complexity);
-            }
+    private void compileToLLVM(Path cFilePath, Path irFilePath) {
+        ToolCommand command = ToolCommand.of(CLANG)
+                .addArgs(irFormat().clangFlags())
+                .addArgs(List.of(toolchain.toolPath(cFilePath),
+                        "-o",
+                        toolchain.toolPath(irFilePath)));
+        if (toolchain.run(command) != 0) {
+            log.warn("Compilation failed: {}", command);
+            throw new RuntimeException("Slicing failed");
         }
-        return complexityMap;
     }
 
-}
\ No newline at end of file
+    @SneakyThrows
+    private void llvm_link(Path bufferDir, List<ProjectManifest.Entry> cFiles, Path linkedIrPath) {
+        List<String> irFiles = cFiles.stream()
+                .map(cFile -> toolchain.toolPath(bufferDir.resolve(irFormat().unitName(cFile.path()))))
+                .toList();
+
+        ToolCommand command = ToolCommand.of(LLVM_LINK)
+                .addArgs(irFormat().linkFlags())
+                .addArgs(irFiles)
+                .addArgs(List.of("-o", toolchain.toolPath(linkedIrPath)));
+        if (toolchain.run(command) != 0) {
+            log.warn("Linking failed: {}", command);
+            throw new RuntimeException("Slicing failed");
+        }
+        metrics.output(irFormat().suffix().substring(1), linkedIrPath);
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.astatine202.scras.backend.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 源文件的只读视图, 供代码查看器按行号区间读取.
+ * <p>
+ * 文件整体映射到内存, 打开时扫描一遍换行符记录每行的起始偏移, 之后读取某个区间只需
+ * 解码对应的字节. 文件版本 (大小 + 修改时间) 作为 ETag, 版本变化后需重新打开.
+ * ETag 为弱 ETag: 同一版本的不同区间、压缩与否的响应都共用它, Tomcat 也不压缩带强 ETag 的响应.
+ */
+public final class SourceFile {
+    private static final int[] NO_LINES = {0};
+
+    private final ByteBuffer data;
+    // 第 i 行 (从 0 开始) 的起始偏移, 末尾附加文件长度
+    private final int[] lineStarts;
+    private final long size;
+    private final long modified;
+
+    private SourceFile(ByteBuffer data, int[] lineStarts, long size, long modified) {
+        this.data = data;
+        this.lineStarts = lineStarts;
+        this.size = size;
+        this.modified = modified;
+    }
+
+    public static SourceFile open(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Source file too large: " + path);
+        }
+        if (size == 0) {
+            return new SourceFile(ByteBuffer.allocate(0), NO_LINES, 0, attributes.lastModifiedTime().toMillis());
+        }
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        int[] starts = new int[1024];
+        int lines = 1;
+        for (int i = 0; i < size; i++) {
+            // 文件末尾的换行符不再开始新的一行
+            if (data.get(i) == '\n' && i + 1 < size) {
+                if (lines == starts.length) {
+                    starts = Arrays.copyOf(starts, lines * 2);
+                }
+                starts[lines++] = i + 1;
+            }
+        }
+        int[] lineStarts = Arrays.copyOf(starts, lines + 1);
+        lineStarts[lines] = (int) size;
+        return new SourceFile(data, lineStarts, size, attributes.lastModifiedTime().toMillis());
+    }
+
+    /** 文件自打开以来未被修改 */
+    public boolean isCurrent(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return attributes.size() == size && attributes.lastModifiedTime().toMillis() == modified;
+    }
+
+    public String etag() {
+        return "W/\"" + Long.toHexString(size) + "-" + Long.toHexString(modified) + "\"";
+    }
+
+    public int lineCount() {
+        return size == 0 ? 0 : lineStarts.length - 1;
+    }
+
+    /** 第 from 到 to 行 (从 1 开始, 含两端, 超出部分忽略), 不含换行符 */
+    public List<String> lines(int from, int to) {
+        int first = Math.max(from, 1);
+        int last = Math.min(to, lineCount());
+        List<String> lines = new ArrayList<>(Math.max(0, last - first + 1));
+        for (int line = first; line <= last; line++) {
+            int start = lineStarts[line - 1];
+            int end = lineStarts[line];
+            while (end > start && (data.get(end - 1) == '\n' || data.get(end - 1) == '\r')) {
+                end--;
+            }
+            lines.add(decode(start, end));
+        }
+        return lines;
+    }
+
+    public String text() {
+        return decode(0, (int) size);
+    }
+
+    // 非法的 UTF-8 序列替换为 U+FFFD, 不会因编码问题读取失败
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        data.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * 为代码查看器提供工作区内的源文件, 每个文件的行偏移索引在工作区内缓存.
+ */
+@Service
+public class SourceService {
+
+    /**
+     * @param path 相对 input 目录的路径
+     * @throws SecurityException 路径指向 input 目录之外
+     * @throws NoSuchFileException 文件不存在或不是普通文件
+     */
+    public SourceFile open(Workspace workspace, String path) throws IOException {
+        Path inputPath = workspace.getInputDir().toAbsolutePath().normalize();
+        Path filePath = inputPath.resolve(path).normalize();
+        if (!filePath.startsWith(inputPath)) {
+            throw new SecurityException("非法的文件路径");
+        }
+        // 不存在或是目录时统一按文件不存在处理
+        if (!Files.isRegularFile(filePath)) {
+            throw new NoSuchFileException(path);
+        }
+        String key = inputPath.relativize(filePath).toString();
+        SourceFile cached = workspace.getSources().get(key);
+        if (cached != null && cached.isCurrent(filePath)) {
+            return cached;
+        }
+        SourceFile source = SourceFile.open(filePath);
+        workspace.getSources().put(key, source);
+        return source;
+    }
+
+    /** If-None-Match 是否包含 etag, 按弱比较 (忽略 W/ 前缀) */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.strip();
+            if (tag.equals("*") || opaque(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
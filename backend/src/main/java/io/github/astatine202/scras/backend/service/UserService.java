@@ -2,9 +2,11 @@ package io.github.astatine202.scras.backend.service;
 
 import io.github.astatine202.scras.backend.model.User;
 import io.github.astatine202.scras.backend.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
 public class UserService {
     private final UserRepository userRepository;
@@ -54,7 +56,7 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("Email not found"));
     
         // 模拟发送邮件（实际项目中应调用邮件服务）
-        System.out.println("Password reset email sent to: " + email);
+        log.info("Password reset email sent to: {}", email);
     }
 
     public void resetPassword(String email, String newPassword, String oldPassword) {
@@ -0,0 +1,179 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.model.ImpactResult;
+import io.github.astatine202.scras.backend.model.NodeInfo;
+import io.github.astatine202.scras.backend.toolchain.IrFormat;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次上传对应的独立工作区: 自己的 input / output / buffer 目录和分析状态,
+ * 不同用户的分析互不干扰.
+ */
+@Getter
+public class Workspace {
+    public static final String INPUT = "input";
+    public static final String OUTPUT = "output";
+    public static final String BUFFER = "buffer";
+
+    public static final String FILE_LL = "output.ll";
+    public static final String FILE_FWD = "output_Fwd.txt";
+    public static final String FILE_SLICES = "slices.bin";
+    public static final String FILE_DOT = "callgraph.dot";
+    public static final String FILE_PNG = "callgraph.png";
+
+    private final String id;
+    private final Path root;
+    private final Path inputDir;
+    private final Path outputDir;
+    private final Path bufferDir;
+
+    private final Map<String, NodeInfo> nodeMap = new ConcurrentHashMap<>();
+    // 按需生成的调用图 / CFG / 渲染图等产物, 每种只生成一次
+    private final Map<String, CompletableFuture<?>> artifacts = new ConcurrentHashMap<>();
+    // 已打开的源文件 (相对 input 的路径 -> 行偏移索引), 文件修改后重新打开
+    private final Map<String, SourceFile> sources = new ConcurrentHashMap<>();
+    @Setter
+    private volatile CallGraph callGraph;
+    // 切片结果只在 runSlicingTool 之后解析一次, 后续查询直接读映射的二进制存储
+    @Setter
+    private volatile SliceStore sliceStore;
+    // 上传后扫描得到的项目清单, 后续阶段不再遍历项目目录
+    @Setter
+    private volatile ProjectManifest manifest;
+    // 已分析的项目名, 单文件分析时为 null
+    @Setter
+    private volatile String projectName;
+    // (文件, 行号) -> 条件编号的反向索引, 与 sliceStore 一同建立
+    @Setter
+    private volatile LineIndex lineIndex;
+    // 最近一次提交的分析任务
+    @Setter
+    private volatile AnalysisJob job;
+    // 变更影响分析的结果, 只有修订版工作区才有
+    @Setter
+    private volatile ImpactResult impact;
+    // 进行中的分片上传
+    @Setter
+    private volatile ChunkedUpload upload;
+
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    public Workspace(String id, Path root) {
+        this.id = id;
+        this.root = root;
+        this.inputDir = root.resolve(INPUT);
+        this.outputDir = root.resolve(OUTPUT);
+        this.bufferDir = root.resolve(BUFFER);
+    }
+
+    /**
+     * 项目名来自请求参数或上传路径, 只允许是 input 下的一级目录名.
+     *
+     * @throws SecurityException 为空、为 . / .., 或含路径分隔符
+     */
+    public static String checkProjectName(String projectName) {
+        if (projectName == null || projectName.isEmpty() || projectName.equals(".") || projectName.equals("..")
+                || projectName.contains("/") || projectName.contains("\\")) {
+            throw new SecurityException("非法的项目名");
+        }
+        return projectName;
+    }
+
+    // 项目的源码目录, 必须位于 input 之下
+    public Path getProjectDir(String projectName) {
+        return within(inputDir, checkProjectName(projectName), "非法的项目名");
+    }
+
+    // 项目各编译单元的 IR 目录
+    public Path getProjectBufferDir(String projectName) {
+        return within(bufferDir, checkProjectName(projectName), "非法的项目名");
+    }
+
+    /**
+     * 单文件分析的源文件, 文件名来自请求参数, 必须位于 input 之下.
+     *
+     * @throws SecurityException 为空或解析到 input 之外
+     */
+    public Path getInputFile(String filename) {
+        if (filename == null || filename.isEmpty()) {
+            throw new SecurityException("非法的文件名");
+        }
+        return within(inputDir, filename, "非法的文件名");
+    }
+
+    private static Path within(Path dir, String name, String message) {
+        Path parent = dir.toAbsolutePath().normalize();
+        Path resolved = parent.resolve(name).normalize();
+        if (!resolved.startsWith(parent) || resolved.equals(parent)) {
+            throw new SecurityException(message);
+        }
+        return dir.resolve(name);
+    }
+
+    public Path getLlPath() {
+        return outputDir.resolve(FILE_LL);
+    }
+
+    // 链接后的 IR; 文本格式时即 getLlPath()
+    public Path getIrPath(IrFormat format) {
+        return outputDir.resolve(format.linkedName());
+    }
+
+    public Path getFwdPath() {
+        return outputDir.resolve(FILE_FWD);
+    }
+
+    public Path getSlicesPath() {
+        return outputDir.resolve(FILE_SLICES);
+    }
+
+    public Path getDotPath() {
+        return outputDir.resolve(FILE_DOT);
+    }
+
+    public Path getPngPath() {
+        return outputDir.resolve(FILE_PNG);
+    }
+
+    public Path getCfgPath() {
+        return outputDir.resolve("cfg");
+    }
+
+    /**
+     * 同一工作区的同一产物只生成一次, 并发请求等待同一次生成; 失败时移除记录, 下次请求重新生成.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T artifact(String name, Callable<T> producer) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) artifacts.putIfAbsent(name, created);
+        if (existing == null) {
+            try {
+                created.complete(producer.call());
+            } catch (Throwable e) {
+                artifacts.remove(name, created);
+                created.completeExceptionally(e);
+            }
+            existing = created;
+        }
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to generate " + name, e.getCause());
+        }
+    }
+
+    public void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+}
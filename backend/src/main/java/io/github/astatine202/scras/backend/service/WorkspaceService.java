@@ -0,0 +1,67 @@
+package io.github.astatine202.scras.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class WorkspaceService {
+    private final FileStorageService storageService;
+    private final Map<String, Workspace> workspaces = new ConcurrentHashMap<>();
+
+    @Value("${scras.workspace.idle-timeout:2h}")
+    private Duration idleTimeout;
+
+    public Workspace create() {
+        String id = UUID.randomUUID().toString();
+        Workspace workspace = new Workspace(id, storageService.getWorkspacesPath().resolve(id));
+        storageService.init(workspace);
+        workspaces.put(id, workspace);
+        log.info("Created workspace {}", id);
+        return workspace;
+    }
+
+    public Workspace get(String id) {
+        Workspace workspace = workspaces.get(id);
+        if (workspace == null) {
+            throw new IllegalArgumentException("Workspace not found: " + id);
+        }
+        workspace.touch();
+        return workspace;
+    }
+
+    public void remove(String id) {
+        Workspace workspace = workspaces.remove(id);
+        if (workspace != null) {
+            if (workspace.getJob() != null) {
+                workspace.getJob().cancel();
+            }
+            storageService.deleteDirectory(workspace.getRoot());
+            log.info("Removed workspace {}", id);
+        }
+    }
+
+    public void removeAll() {
+        workspaces.keySet().forEach(this::remove);
+    }
+
+    // 定期清理长时间未访问的工作区
+    @Scheduled(fixedDelayString = "${scras.workspace.sweep-interval:5m}")
+    public void removeIdle() {
+        long deadline = System.currentTimeMillis() - idleTimeout.toMillis();
+        workspaces.values().stream()
+                .filter(workspace -> workspace.getLastAccess() < deadline)
+                .map(Workspace::getId)
+                .toList()
+                .forEach(this::remove);
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.TreeMap;
+
+@Slf4j
+public abstract class AbstractToolchainExecutor implements ToolchainExecutor {
+    protected final ToolchainProperties properties;
+    protected final Path root;
+    protected final ProcessRunner runner;
+
+    protected AbstractToolchainExecutor(ToolchainProperties properties) {
+        this.properties = properties;
+        this.root = properties.getRoot().toAbsolutePath().normalize();
+        this.runner = new ProcessRunner((int) properties.getMaxCapturedOutput().toBytes());
+    }
+
+    @Override
+    public String version() {
+        return mode() + ":" + properties.getImage() + ":" + properties.getBinDir()
+                + ":" + new TreeMap<>(properties.getBinaries());
+    }
+
+    // 实际的执行方式; REMOTE 模式下协调节点按 worker 的方式构造实例, 只用于路径映射和版本标识
+    protected abstract ToolchainProperties.Mode mode();
+
+    // 逻辑工具名 -> 实际可执行文件名
+    protected String binary(String tool) {
+        return properties.getBinaries().getOrDefault(tool, tool);
+    }
+
+    // 命令自带的时限优先, 其次按工具名配置, 最后是全局默认值
+    protected Duration timeout(ToolCommand command) {
+        if (command.getTimeout() != null) {
+            return command.getTimeout();
+        }
+        return properties.getTimeouts().getOrDefault(command.getTool(), properties.getTimeout());
+    }
+
+    protected int execute(List<String> command, Path directory, ToolCommand toolCommand)
+            throws IOException, InterruptedException {
+        ProcessRunner.Result result = runner.run(command, directory,
+                toolCommand.getOutput(), toolCommand.getError(), timeout(toolCommand));
+        if (result.exitCode() != 0) {
+            log.warn("{} exited with {}: {}", toolCommand.getTool(), result.exitCode(), result.error().strip());
+        }
+        return result.exitCode();
+    }
+}
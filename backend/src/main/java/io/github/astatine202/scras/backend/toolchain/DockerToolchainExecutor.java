@@ -0,0 +1,145 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每次调用都 {@code docker run --rm} 一个新容器, 项目根目录挂载到 /workspace.
+ * <p>
+ * 容器带有 scras.root (挂载的根目录) 和 scras.instance (本进程) 标签. 启动时删除同一根目录下
+ * 其他进程遗留的容器, 之后定期删除本进程已不再跟踪的容器 (例如 docker 客户端被终止后残留的).
+ */
+@Slf4j
+public class DockerToolchainExecutor extends AbstractToolchainExecutor {
+    protected static final String MOUNT = "/workspace";
+    protected static final String LABEL_ROOT = "scras.root";
+    protected static final String LABEL_INSTANCE = "scras.instance";
+    // docker 客户端自身的操作 (ps / rm / run -d) 的时限
+    protected static final Duration CLIENT_TIMEOUT = Duration.ofMinutes(2);
+
+    protected final String instance = UUID.randomUUID().toString();
+    // 本进程正在使用的容器名
+    protected final Set<String> active = ConcurrentHashMap.newKeySet();
+
+    public DockerToolchainExecutor(ToolchainProperties properties) {
+        super(properties);
+    }
+
+    @Override
+    protected ToolchainProperties.Mode mode() {
+        return ToolchainProperties.Mode.DOCKER;
+    }
+
+    @Override
+    public String toolPath(Path hostPath) {
+        Path relative = root.relativize(hostPath.toAbsolutePath().normalize());
+        String path = relative.toString().replace("\\", "/");
+        return path.isEmpty() ? MOUNT : MOUNT + "/" + path;
+    }
+
+    @Override
+    public int run(ToolCommand command) throws IOException, InterruptedException {
+        // 命名容器, 取消或超时时才能找到并删除它
+        String name = "scras-" + UUID.randomUUID();
+        List<String> argv = new ArrayList<>(List.of("docker", "run", "--rm", "--name", name));
+        argv.addAll(containerOptions());
+        if (command.getDirectory() != null) {
+            argv.addAll(List.of("-w", toolPath(command.getDirectory())));
+        }
+        argv.add(properties.getImage());
+        argv.add(binary(command.getTool()));
+        argv.addAll(command.getArgs());
+        active.add(name);
+        try {
+            return execute(argv, null, command);
+        } catch (InterruptedException | ToolTimeoutException e) {
+            // 仅终止 docker 客户端并不会停止容器
+            removeContainer(name);
+            throw e;
+        } finally {
+            active.remove(name);
+        }
+    }
+
+    // 挂载、标签和资源限制, docker run 与常驻容器共用
+    protected List<String> containerOptions() {
+        List<String> options = new ArrayList<>(List.of("-v", root + ":" + MOUNT,
+                "--label", LABEL_ROOT + "=" + root,
+                "--label", LABEL_INSTANCE + "=" + instance));
+        if (properties.getMemoryLimit() != null) {
+            long bytes = properties.getMemoryLimit().toBytes();
+            // 与 --memory 相同表示不允许使用 swap
+            options.addAll(List.of("--memory", bytes + "b", "--memory-swap", bytes + "b"));
+        }
+        if (properties.getCpus() != null) {
+            options.addAll(List.of("--cpus", String.valueOf(properties.getCpus())));
+        }
+        return options;
+    }
+
+    /** 删除同一根目录下其他 (已退出的) 后端进程遗留的容器 */
+    @PostConstruct
+    public void removeOrphans() {
+        try {
+            // 本进程此时还没有创建任何容器
+            for (String container : listContainers(LABEL_ROOT + "=" + root)) {
+                log.info("Removing orphaned toolchain container {}", container);
+                removeContainer(container);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list toolchain containers", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** 删除本进程创建但已不再使用的容器 */
+    @Scheduled(fixedDelayString = "${scras.toolchain.orphan-sweep-interval:10m}",
+            initialDelayString = "${scras.toolchain.orphan-sweep-interval:10m}")
+    public void sweepOrphans() {
+        try {
+            for (String container : listContainers(LABEL_INSTANCE + "=" + instance)) {
+                if (!active.contains(container)) {
+                    log.info("Removing stale toolchain container {}", container);
+                    removeContainer(container);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list toolchain containers", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected List<String> listContainers(String label) throws IOException, InterruptedException {
+        ProcessRunner.Result result = runner.run(
+                List.of("docker", "ps", "-a", "--filter", "label=" + label, "--format", "{{.Names}}"),
+                null, ProcessBuilder.Redirect.PIPE, ProcessBuilder.Redirect.PIPE, CLIENT_TIMEOUT);
+        if (result.exitCode() != 0) {
+            throw new IOException("docker ps failed: " + result.error().strip());
+        }
+        return result.output().lines().map(String::strip).filter(s -> !s.isEmpty()).toList();
+    }
+
+    protected void removeContainer(String container) {
+        try {
+            runner.run(List.of("docker", "rm", "-f", container), null,
+                    ProcessBuilder.Redirect.DISCARD, ProcessBuilder.Redirect.DISCARD, CLIENT_TIMEOUT);
+        } catch (IOException e) {
+            log.warn("Failed to remove container {}", container, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
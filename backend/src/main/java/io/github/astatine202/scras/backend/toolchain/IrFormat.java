@@ -0,0 +1,57 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import java.util.List;
+
+/**
+ * 分析流水线各阶段 (clang -> llvm-link -> llvm-slicing / opt) 之间传递的 IR 格式.
+ * <p>
+ * BITCODE 体积只有文本 IR 的几分之一, 各阶段也省去了文本解析, 文本 IR 只在调试时由 llvm-dis 按需生成;
+ * 但位码无法像文本那样改写调试信息中的源码路径, 见 {@link #isRelocatable()}.
+ */
+public enum IrFormat {
+    TEXT(".ll", "-S", List.of("-S")),
+    BITCODE(".bc", "-c", List.of());
+
+    private final String suffix;
+    private final List<String> clangFlags;
+    private final List<String> linkFlags;
+
+    IrFormat(String suffix, String clangOutput, List<String> linkFlags) {
+        this.suffix = suffix;
+        this.clangFlags = List.of("-emit-llvm", clangOutput, "-O0", "-g");
+        this.linkFlags = linkFlags;
+    }
+
+    public String suffix() {
+        return suffix;
+    }
+
+    public List<String> clangFlags() {
+        return clangFlags;
+    }
+
+    public List<String> linkFlags() {
+        return linkFlags;
+    }
+
+    /** 链接后的整个项目的 IR 文件名 */
+    public String linkedName() {
+        return "output" + suffix;
+    }
+
+    /** 编译单元对应的 IR 文件 (相对路径) */
+    public String unitName(String source) {
+        return source
+                /* .replaceFirst("\\.cpp$", suffix) */
+                .replaceFirst("\\.c$", suffix);
+    }
+
+    /**
+     * 调试信息中的源码根目录能否改写为另一个工作区的目录. 不能改写时, 来自其他工作区的 IR
+     * 中的源码路径保持原样, 切片结果按项目名去掉路径前缀 ({@code SliceIndex}) 后仍然一致,
+     * 因此只在项目名相同时复用.
+     */
+    public boolean isRelocatable() {
+        return this == TEXT;
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 为每次工具调用记录耗时和退出码 (scras.tool.duration, 标签 tool / mode / exit).
+ * 一次性 docker 模式下耗时包含容器启动.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class MeteredToolchainExecutor implements ToolchainExecutor {
+    private final ToolchainExecutor delegate;
+    private final MeterRegistry registry;
+    private final String mode;
+
+    @Override
+    public String toolPath(Path hostPath) {
+        return delegate.toolPath(hostPath);
+    }
+
+    @Override
+    public String version() {
+        return delegate.version();
+    }
+
+    @Override
+    public int run(ToolCommand command) throws IOException, InterruptedException {
+        Timer.Sample sample = Timer.start(registry);
+        String exit = "error";
+        try {
+            int code = delegate.run(command);
+            exit = String.valueOf(code);
+            return code;
+        } catch (ToolTimeoutException e) {
+            exit = "timeout";
+            throw e;
+        } catch (InterruptedException e) {
+            exit = "interrupted";
+            throw e;
+        } finally {
+            long nanos = sample.stop(Timer.builder("scras.tool.duration")
+                    .description("Toolchain process run time")
+                    .tags("tool", command.getTool(), "mode", mode, "exit", exit)
+                    .register(registry));
+            log.debug("tool={} exit={} durationMs={} args={}", command.getTool(), exit, nanos / 1_000_000,
+                    command.getArgs());
+        }
+    }
+}
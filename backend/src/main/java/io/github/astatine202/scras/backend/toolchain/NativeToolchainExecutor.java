@@ -0,0 +1,48 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 直接调用宿主机上安装的工具. 配合 {@code scras.toolchain.bin-dir}
+ * 指向一组替身脚本, 即可在没有 docker 的环境下离线测试.
+ */
+public class NativeToolchainExecutor extends AbstractToolchainExecutor {
+
+    public NativeToolchainExecutor(ToolchainProperties properties) {
+        super(properties);
+    }
+
+    @Override
+    protected ToolchainProperties.Mode mode() {
+        return ToolchainProperties.Mode.NATIVE;
+    }
+
+    @Override
+    public String toolPath(Path hostPath) {
+        return hostPath.toAbsolutePath().normalize().toString();
+    }
+
+    @Override
+    public int run(ToolCommand command) throws IOException, InterruptedException {
+        List<String> argv = new ArrayList<>();
+        if (properties.getMemoryLimit() != null) {
+            // 需要 util-linux 的 prlimit; 子进程继承该限制
+            argv.addAll(List.of("prlimit", "--as=" + properties.getMemoryLimit().toBytes(), "--"));
+        }
+        argv.add(resolveBinary(command.getTool()));
+        argv.addAll(command.getArgs());
+        Path directory = command.getDirectory() == null ? root : command.getDirectory();
+        return execute(argv, directory.toAbsolutePath(), command);
+    }
+
+    private String resolveBinary(String tool) {
+        String binary = binary(tool);
+        Path binDir = properties.getBinDir();
+        return binDir == null ? binary : binDir.toAbsolutePath().resolve(binary).toString();
+    }
+}
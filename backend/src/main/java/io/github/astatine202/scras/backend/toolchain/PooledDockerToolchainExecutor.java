@@ -0,0 +1,94 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * 预先启动若干常驻容器, 通过 {@code docker exec} 分派任务, 省去每次的容器启动开销.
+ * 资源限制作用于整个容器, 同一时刻每个容器只执行一个任务.
+ */
+@Slf4j
+public class PooledDockerToolchainExecutor extends DockerToolchainExecutor {
+    private final BlockingQueue<String> idle = new LinkedBlockingQueue<>();
+
+    public PooledDockerToolchainExecutor(ToolchainProperties properties) {
+        super(properties);
+    }
+
+    @PostConstruct
+    public void start() throws IOException, InterruptedException {
+        for (int i = 0; i < properties.getPoolSize(); i++) {
+            idle.add(startContainer());
+        }
+        log.info("Started {} toolchain containers", active.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        active.forEach(this::removeContainer);
+        active.clear();
+    }
+
+    @Override
+    protected ToolchainProperties.Mode mode() {
+        return ToolchainProperties.Mode.POOL;
+    }
+
+    @Override
+    public int run(ToolCommand command) throws IOException, InterruptedException {
+        String container = idle.take();
+        try {
+            List<String> argv = new ArrayList<>(List.of("docker", "exec"));
+            if (command.getDirectory() != null) {
+                argv.addAll(List.of("-w", toolPath(command.getDirectory())));
+            }
+            argv.add(container);
+            argv.add(binary(command.getTool()));
+            argv.addAll(command.getArgs());
+            return execute(argv, null, command);
+        } catch (InterruptedException | ToolTimeoutException e) {
+            // docker exec 被终止后容器内的进程仍在运行, 直接换一个新容器
+            container = replaceContainer(container);
+            throw e;
+        } finally {
+            if (container != null) {
+                idle.add(container);
+            }
+        }
+    }
+
+    private String replaceContainer(String container) {
+        active.remove(container);
+        removeContainer(container);
+        try {
+            return startContainer();
+        } catch (IOException | InterruptedException e) {
+            log.error("Failed to replace toolchain container, pool shrinks to {}", active.size(), e);
+            return null;
+        }
+    }
+
+    private String startContainer() throws IOException, InterruptedException {
+        String name = "scras-pool-" + UUID.randomUUID();
+        List<String> argv = new ArrayList<>(List.of("docker", "run", "-d", "--rm", "--name", name));
+        argv.addAll(containerOptions());
+        argv.addAll(List.of(properties.getImage(), "tail", "-f", "/dev/null"));
+        ProcessRunner.Result result = runner.run(argv, null,
+                ProcessBuilder.Redirect.DISCARD, ProcessBuilder.Redirect.PIPE, CLIENT_TIMEOUT);
+        if (result.exitCode() != 0) {
+            throw new IOException("Failed to start toolchain container from " + properties.getImage()
+                    + ": " + result.error().strip());
+        }
+        active.add(name);
+        return name;
+    }
+}
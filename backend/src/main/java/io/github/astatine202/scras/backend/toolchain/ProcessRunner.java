@@ -0,0 +1,152 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动外部进程并等待其结束, 所有工具链调用 (包括 docker 客户端本身) 都经过这里.
+ * <p>
+ * 重定向为 PIPE 的输出由虚拟线程并发读取, 只保留最后 maxCapture 字节, 因此子进程不会因为
+ * 某个管道写满而阻塞, 捕获的内容也不会无限增长. 超过时限或调用线程被中断时终止整个进程树.
+ */
+@Slf4j
+public class ProcessRunner {
+    // 进程退出后等待读取线程读完剩余输出的时间
+    private static final long DRAIN_GRACE_MILLIS = 1000;
+
+    private final int maxCapture;
+
+    public ProcessRunner(int maxCapture) {
+        this.maxCapture = maxCapture;
+    }
+
+    /** 退出码和捕获的输出 (未使用 PIPE 时为空串) */
+    public record Result(int exitCode, String output, String error) {
+    }
+
+    /**
+     * @param timeout 为 null 或 0 时不限时
+     * @throws ToolTimeoutException 超时, 进程已被终止
+     */
+    public Result run(List<String> command, Path directory, ProcessBuilder.Redirect output,
+            ProcessBuilder.Redirect error, Duration timeout) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(command)
+                .redirectOutput(output)
+                .redirectError(error);
+        if (directory != null) {
+            pb.directory(directory.toFile());
+        }
+        log.debug("Running {}", command);
+        Process process = pb.start();
+        Drain stdout = Drain.start(process.getInputStream(), output, maxCapture);
+        Drain stderr = Drain.start(process.getErrorStream(), error, maxCapture);
+        try {
+            if (timeout == null || timeout.isZero()) {
+                process.waitFor();
+            } else if (!process.waitFor(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                destroy(process);
+                throw new ToolTimeoutException(String.join(" ", command), timeout);
+            }
+            return new Result(process.exitValue(), stdout.finish(), stderr.finish());
+        } finally {
+            // 被中断时连同子进程一起终止
+            destroy(process);
+            stdout.close();
+            stderr.close();
+        }
+    }
+
+    private static void destroy(Process process) {
+        if (process.isAlive()) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+
+    // 读取一个输出管道, 只保留末尾 capacity 字节
+    private static final class Drain implements Runnable {
+        private static final Drain NONE = new Drain(null, 0);
+
+        private final InputStream in;
+        private final byte[] ring;
+        private long total;
+        private Thread thread;
+
+        private Drain(InputStream in, int capacity) {
+            this.in = in;
+            this.ring = new byte[capacity];
+        }
+
+        static Drain start(InputStream in, ProcessBuilder.Redirect redirect, int capacity) {
+            if (redirect.type() != ProcessBuilder.Redirect.Type.PIPE) {
+                return NONE;
+            }
+            Drain drain = new Drain(in, capacity);
+            drain.thread = Thread.ofVirtual().name("process-drain").start(drain);
+            return drain;
+        }
+
+        @Override
+        public void run() {
+            byte[] buf = new byte[8192];
+            try {
+                int n;
+                while ((n = in.read(buf)) >= 0) {
+                    append(buf, n);
+                }
+            } catch (IOException e) {
+                // 管道在进程被终止或 close() 时关闭
+            }
+        }
+
+        private synchronized void append(byte[] buf, int n) {
+            if (ring.length == 0) {
+                total += n;
+                return;
+            }
+            // 一次读到的比容量还多时, 前面的部分直接跳过
+            int skip = Math.max(0, n - ring.length);
+            total += skip;
+            for (int i = skip; i < n; i++) {
+                ring[(int) (total++ % ring.length)] = buf[i];
+            }
+        }
+
+        String finish() throws InterruptedException {
+            if (thread == null) {
+                return "";
+            }
+            thread.join(DRAIN_GRACE_MILLIS);
+            return text();
+        }
+
+        private synchronized String text() {
+            int length = (int) Math.min(total, ring.length);
+            byte[] tail = new byte[length];
+            int start = (int) ((total - length) % Math.max(1, ring.length));
+            for (int i = 0; i < length; i++) {
+                tail[i] = ring[(start + i) % ring.length];
+            }
+            String text = new String(tail, StandardCharsets.UTF_8);
+            return total > length ? "...[" + (total - length) + " bytes truncated]\n" + text : text;
+        }
+
+        void close() {
+            if (thread != null) {
+                try {
+                    // 仍持有管道的孙进程也已终止; 关闭后读取线程随即结束
+                    in.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close process stream", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+import io.github.astatine202.scras.backend.config.WorkerProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 把工具调用作为 {@link ToolTask} 提交给 {@link WorkerCoordinator}, 由独立的 worker 进程执行.
+ * <p>
+ * worker 与协调节点共享工具链根目录 (同一台机器或共享存储), 按 {@code scras.toolchain.worker-mode}
+ * 执行; 参数中的路径和工具链标识按该方式生成, 因此切片结果和缓存与直接在本进程执行时一致.
+ */
+@Slf4j
+public class RemoteToolchainExecutor implements ToolchainExecutor {
+    private final ToolchainProperties properties;
+    private final Path root;
+    // 按 worker 的执行方式构造, 只用于路径映射和工具链标识
+    private final ToolchainExecutor template;
+    private final WorkerProperties workerProperties;
+    private final WorkerCoordinator coordinator;
+
+    public RemoteToolchainExecutor(ToolchainProperties properties, ToolchainExecutor template,
+            WorkerProperties workerProperties, WorkerCoordinator coordinator) {
+        this.properties = properties;
+        this.root = properties.getRoot().toAbsolutePath().normalize();
+        this.template = template;
+        this.workerProperties = workerProperties;
+        this.coordinator = coordinator;
+    }
+
+    @Override
+    public String toolPath(Path hostPath) {
+        return template.toolPath(hostPath);
+    }
+
+    @Override
+    public String version() {
+        return template.version();
+    }
+
+    @Override
+    public int run(ToolCommand command) throws IOException, InterruptedException {
+        Duration timeout = command.getTimeout() != null ? command.getTimeout()
+                : properties.getTimeouts().getOrDefault(command.getTool(), properties.getTimeout());
+        ToolTask task = ToolTask.of(UUID.randomUUID().toString(), command, root, timeout);
+        CompletableFuture<ToolTaskResult> future = coordinator.submit(task);
+        ToolTaskResult result;
+        try {
+            // 不限时的工具也不限等待时间; 否则 worker 全部失联或卡住时最多等到超时加上宽限
+            result = timeout.isZero() ? future.get()
+                    : future.get(timeout.plus(workerProperties.getResultGrace()).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            coordinator.cancel(task.id());
+            throw e;
+        } catch (TimeoutException e) {
+            coordinator.cancel(task.id());
+            throw new ToolTimeoutException(command.getTool() + " " + String.join(" ", command.getArgs()), timeout);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("Task " + task.id() + " failed", e.getCause());
+        }
+        if (result.timedOut()) {
+            throw new ToolTimeoutException(command.getTool() + " " + String.join(" ", command.getArgs()), timeout);
+        }
+        if (result.error() != null) {
+            throw new IOException(command.getTool() + " failed on worker: " + result.error());
+        }
+        if (result.exitCode() != 0) {
+            log.warn("{} exited with {} on worker", command.getTool(), result.exitCode());
+        }
+        return result.exitCode();
+    }
+}
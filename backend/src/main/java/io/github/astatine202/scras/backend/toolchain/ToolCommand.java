@@ -0,0 +1,36 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一次工具链调用: 逻辑工具名 + 参数 + 工作目录 + 输出重定向.
+ * 参数中的路径需先经过 {@link ToolchainExecutor#toolPath(Path)} 转换.
+ */
+@Data
+@Accessors(chain = true)
+public class ToolCommand {
+    private final String tool;
+    private final List<String> args;
+    private Path directory;
+    private ProcessBuilder.Redirect output = ProcessBuilder.Redirect.DISCARD;
+    // 默认捕获 stderr 的末尾部分, 失败时写入日志
+    private ProcessBuilder.Redirect error = ProcessBuilder.Redirect.PIPE;
+    // 为空时使用 scras.toolchain.timeout(s)
+    private Duration timeout;
+
+    public static ToolCommand of(String tool, String... args) {
+        return new ToolCommand(tool, new ArrayList<>(Arrays.asList(args)));
+    }
+
+    public ToolCommand addArgs(List<String> more) {
+        args.addAll(more);
+        return this;
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 分派给 worker 的一次工具调用, 即可序列化的 {@link ToolCommand}.
+ * <p>
+ * 工作目录和输出文件为相对工具链根目录的路径, 由 worker 按自己的根目录解析;
+ * 参数已按 worker 的执行方式转换 ({@link ToolchainExecutor#toolPath}).
+ *
+ * @param output 标准输出: "write:路径", "append:路径" 或 "discard"; null 表示 {@link ToolCommand} 的默认值
+ * @param error 标准错误, 格式同 output
+ * @param timeoutMillis 0 表示不限时
+ */
+public record ToolTask(String id, String tool, List<String> args, String directory, String output, String error,
+        long timeoutMillis) {
+    private static final String WRITE = "write:";
+    private static final String APPEND = "append:";
+    private static final String DISCARD = "discard";
+    // worker 只执行流水线用到的工具 (逻辑工具名, 由 scras.toolchain.binaries 映射为可执行文件)
+    static final Set<String> TOOLS = Set.of("clang", "llvm-link", "llvm-slicing", "opt", "dot", "llvm-dis");
+
+    static ToolTask of(String id, ToolCommand command, Path root, Duration timeout) {
+        return new ToolTask(id, command.getTool(), List.copyOf(command.getArgs()),
+                command.getDirectory() == null ? null : relative(root, command.getDirectory()),
+                redirect(command.getOutput(), root), redirect(command.getError(), root), timeout.toMillis());
+    }
+
+    /**
+     * 在 worker 一侧还原为命令, 路径相对 root 解析.
+     *
+     * @throws SecurityException 不是流水线使用的工具, 或工作目录 / 输出文件位于 root 之外
+     */
+    public ToolCommand toCommand(Path root) {
+        if (!TOOLS.contains(tool)) {
+            throw new SecurityException("Tool not allowed on worker: " + tool);
+        }
+        Path base = root.toAbsolutePath().normalize();
+        ToolCommand command = ToolCommand.of(tool).addArgs(args);
+        if (directory != null) {
+            command.setDirectory(within(base, directory));
+        }
+        ProcessBuilder.Redirect stdout = redirect(output, base);
+        if (stdout != null) {
+            command.setOutput(stdout);
+        }
+        ProcessBuilder.Redirect stderr = redirect(error, base);
+        if (stderr != null) {
+            command.setError(stderr);
+        }
+        return command.setTimeout(Duration.ofMillis(timeoutMillis));
+    }
+
+    private static ProcessBuilder.Redirect redirect(String redirect, Path root) {
+        if (redirect == null) {
+            return null;
+        } else if (redirect.equals(DISCARD)) {
+            return ProcessBuilder.Redirect.DISCARD;
+        } else if (redirect.startsWith(WRITE)) {
+            return ProcessBuilder.Redirect.to(within(root, redirect.substring(WRITE.length())).toFile());
+        } else if (redirect.startsWith(APPEND)) {
+            return ProcessBuilder.Redirect.appendTo(within(root, redirect.substring(APPEND.length())).toFile());
+        }
+        return null;
+    }
+
+    // 任务来自网络, 相对路径不得解析到 root 之外
+    private static Path within(Path root, String path) {
+        Path resolved = root.resolve(path).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new SecurityException("Task path outside toolchain root: " + path);
+        }
+        return resolved;
+    }
+
+    // PIPE 等无法跨进程传递的方式返回 null, worker 一侧使用默认值
+    private static String redirect(ProcessBuilder.Redirect redirect, Path root) {
+        if (redirect.equals(ProcessBuilder.Redirect.DISCARD)) {
+            return DISCARD;
+        }
+        File file = redirect.file();
+        if (file == null) {
+            return null;
+        }
+        return switch (redirect.type()) {
+            case WRITE -> WRITE + relative(root, file.toPath());
+            case APPEND -> APPEND + relative(root, file.toPath());
+            default -> null;
+        };
+    }
+
+    private static String relative(Path root, Path path) {
+        return root.relativize(path.toAbsolutePath().normalize()).toString().replace("\\", "/");
+    }
+}
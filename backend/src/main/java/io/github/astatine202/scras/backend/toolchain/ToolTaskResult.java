@@ -0,0 +1,9 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+/**
+ * worker 执行 {@link ToolTask} 的结果.
+ *
+ * @param error 进程未能启动等 worker 一侧的错误, 正常退出时为 null
+ */
+public record ToolTaskResult(String taskId, int exitCode, boolean timedOut, String error) {
+}
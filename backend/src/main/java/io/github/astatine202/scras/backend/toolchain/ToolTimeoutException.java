@@ -0,0 +1,14 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 工具进程超过时限, 已被终止.
+ */
+public class ToolTimeoutException extends IOException {
+
+    public ToolTimeoutException(String command, Duration timeout) {
+        super("Timed out after " + timeout + ": " + command);
+    }
+}
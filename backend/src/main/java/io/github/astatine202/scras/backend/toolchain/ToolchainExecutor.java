@@ -0,0 +1,19 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 工具链 (clang / llvm-link / llvm-slicing / opt / dot) 的执行后端.
+ */
+public interface ToolchainExecutor {
+
+    /** 将宿主机路径转换为工具进程内可见的路径 */
+    String toolPath(Path hostPath);
+
+    /** 工具链标识 (镜像或可执行文件位置), 用于缓存键 */
+    String version();
+
+    /** 同步执行命令并返回退出码; 调用线程被中断时终止子进程 */
+    int run(ToolCommand command) throws IOException, InterruptedException;
+}
@@ -0,0 +1,13 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import java.io.IOException;
+
+/**
+ * 协调节点不认识该 worker (已失联被移除, 或协调节点重启), worker 需重新注册.
+ */
+public class UnknownWorkerException extends IOException {
+
+    public UnknownWorkerException(String workerId) {
+        super("Unknown worker " + workerId);
+    }
+}
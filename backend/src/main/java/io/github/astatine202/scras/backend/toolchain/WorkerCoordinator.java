@@ -0,0 +1,200 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import io.github.astatine202.scras.backend.config.WorkerProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * REMOTE 模式下的协调节点: 内嵌的任务队列和 worker 注册表.
+ * <p>
+ * 任务按提交顺序分派给拉取任务的 worker; worker 定期发送心跳, 超过
+ * {@code scras.worker.heartbeat-timeout} 未发送的视为失联, 其正在执行的任务重新排队
+ * (工具调用只写自己的输出文件, 重复执行是安全的), 超过最大分派次数后以失败结束.
+ */
+@Slf4j
+public class WorkerCoordinator implements WorkerTransport {
+    private final WorkerProperties properties;
+    // worker 必须使用与协调节点相同的工具链
+    private final String version;
+
+    private final BlockingDeque<Pending> queue = new LinkedBlockingDeque<>();
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<String, Worker> workers = new ConcurrentHashMap<>();
+
+    /** 已注册的 worker, 用于 GET /api/workers */
+    public record WorkerInfo(String id, String name, int slots, long lastHeartbeat, List<String> running) {
+    }
+
+    private static final class Pending {
+        final ToolTask task;
+        final CompletableFuture<ToolTaskResult> result = new CompletableFuture<>();
+        volatile int attempts;
+        volatile String workerId;
+
+        Pending(ToolTask task) {
+            this.task = task;
+        }
+    }
+
+    private static final class Worker {
+        final String id;
+        final Registration registration;
+        volatile long lastHeartbeat = System.currentTimeMillis();
+        final Set<String> running = ConcurrentHashMap.newKeySet();
+        final Set<String> cancelled = ConcurrentHashMap.newKeySet();
+
+        Worker(String id, Registration registration) {
+            this.id = id;
+            this.registration = registration;
+        }
+    }
+
+    public WorkerCoordinator(WorkerProperties properties, String version) {
+        this.properties = properties;
+        this.version = version;
+    }
+
+    /** 提交任务, 返回的 future 在某个 worker 完成任务时完成; 没有已注册的 worker 时立即失败 */
+    public CompletableFuture<ToolTaskResult> submit(ToolTask task) {
+        if (workers.isEmpty()) {
+            return CompletableFuture.failedFuture(new IOException("No workers registered, cannot run "
+                    + task.tool()));
+        }
+        Pending entry = new Pending(task);
+        pending.put(task.id(), entry);
+        queue.add(entry);
+        return entry.result;
+    }
+
+    /** 调用方不再等待结果: 未分派的任务直接丢弃, 已分派的在下次心跳时通知 worker 终止 */
+    public void cancel(String taskId) {
+        Pending entry = pending.remove(taskId);
+        if (entry == null) {
+            return;
+        }
+        queue.remove(entry);
+        Worker worker = entry.workerId == null ? null : workers.get(entry.workerId);
+        if (worker != null) {
+            worker.cancelled.add(taskId);
+        }
+        entry.result.cancel(false);
+    }
+
+    @Override
+    public String register(Registration registration) {
+        if (!version.equals(registration.version())) {
+            throw new IllegalArgumentException("Worker toolchain " + registration.version()
+                    + " does not match coordinator toolchain " + version);
+        }
+        String id = UUID.randomUUID().toString();
+        workers.put(id, new Worker(id, registration));
+        log.info("Worker {} registered as {} with {} slots", registration.name(), id, registration.slots());
+        return id;
+    }
+
+    @Override
+    public Heartbeat heartbeat(String workerId) {
+        Worker worker = workers.get(workerId);
+        if (worker == null) {
+            return new Heartbeat(false, List.of());
+        }
+        worker.lastHeartbeat = System.currentTimeMillis();
+        List<String> cancelled = new ArrayList<>(worker.cancelled);
+        worker.cancelled.removeAll(cancelled);
+        return new Heartbeat(true, cancelled);
+    }
+
+    @Override
+    public ToolTask poll(String workerId, Duration wait) throws UnknownWorkerException, InterruptedException {
+        Worker worker = requireWorker(workerId);
+        long deadline = System.nanoTime() + Math.min(wait.toNanos(), properties.getPollWait().toNanos());
+        while (true) {
+            Pending entry = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (entry == null) {
+                return null;
+            }
+            // 排队期间已被取消
+            if (pending.get(entry.task.id()) != entry) {
+                continue;
+            }
+            // worker 在等待期间失联
+            if (workers.get(workerId) != worker) {
+                queue.addFirst(entry);
+                return null;
+            }
+            entry.attempts++;
+            entry.workerId = workerId;
+            worker.running.add(entry.task.id());
+            return entry.task;
+        }
+    }
+
+    @Override
+    public void complete(String workerId, ToolTaskResult result) {
+        Worker worker = workers.get(workerId);
+        if (worker != null) {
+            worker.running.remove(result.taskId());
+        }
+        Pending entry = pending.get(result.taskId());
+        // 失联后重新排队的任务可能被原来的 worker 迟到地完成, 只接受当前负责的 worker 的结果
+        if (entry != null && workerId.equals(entry.workerId) && pending.remove(result.taskId(), entry)) {
+            entry.result.complete(result);
+        }
+    }
+
+    /** 移除失联的 worker, 其任务重新排队 */
+    @Scheduled(fixedDelayString = "${scras.worker.sweep-interval:5s}")
+    public void expireWorkers() {
+        long deadline = System.currentTimeMillis() - properties.getHeartbeatTimeout().toMillis();
+        for (Worker worker : workers.values()) {
+            if (worker.lastHeartbeat >= deadline || !workers.remove(worker.id, worker)) {
+                continue;
+            }
+            log.warn("Worker {} ({}) missed its heartbeat, re-queueing {} tasks",
+                    worker.id, worker.registration.name(), worker.running.size());
+            for (String taskId : worker.running) {
+                Pending entry = pending.get(taskId);
+                if (entry == null || !worker.id.equals(entry.workerId)) {
+                    continue;
+                }
+                entry.workerId = null;
+                if (entry.attempts >= properties.getMaxAttempts()) {
+                    pending.remove(taskId, entry);
+                    entry.result.completeExceptionally(new IOException("Task " + taskId + " (" + entry.task.tool()
+                            + ") lost " + entry.attempts + " workers"));
+                } else {
+                    queue.addFirst(entry);
+                }
+            }
+        }
+    }
+
+    public List<WorkerInfo> workers() {
+        return workers.values().stream()
+                .map(worker -> new WorkerInfo(worker.id, worker.registration.name(), worker.registration.slots(),
+                        worker.lastHeartbeat, List.copyOf(worker.running)))
+                .sorted(Comparator.comparing(WorkerInfo::name))
+                .toList();
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    private Worker requireWorker(String workerId) throws UnknownWorkerException {
+        Worker worker = workers.get(workerId);
+        if (worker == null) {
+            throw new UnknownWorkerException(workerId);
+        }
+        return worker;
+    }
+}
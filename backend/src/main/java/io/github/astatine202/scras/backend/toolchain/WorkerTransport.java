@@ -0,0 +1,31 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * worker 与协调节点之间的通信方式. {@link WorkerCoordinator} 本身即同一进程内的实现,
+ * 独立的 worker 进程通过 HTTP 实现访问协调节点的 /api/workers 接口.
+ */
+public interface WorkerTransport {
+
+    /** worker 的自我描述; version 须与协调节点的工具链标识一致 */
+    record Registration(String name, String version, int slots) {
+    }
+
+    /** @param registered false 表示协调节点不认识该 worker (已失联或重启), 需重新注册 */
+    record Heartbeat(boolean registered, List<String> cancelled) {
+    }
+
+    /** @return 分配的 worker ID */
+    String register(Registration registration) throws IOException, InterruptedException;
+
+    /** 上报存活, 返回需要终止的任务 */
+    Heartbeat heartbeat(String workerId) throws IOException, InterruptedException;
+
+    /** 取一个任务, 最多等待 wait; 没有任务时返回 null */
+    ToolTask poll(String workerId, Duration wait) throws IOException, InterruptedException;
+
+    void complete(String workerId, ToolTaskResult result) throws IOException, InterruptedException;
+}
@@ -0,0 +1,80 @@
+package io.github.astatine202.scras.backend.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.astatine202.scras.backend.toolchain.ToolTask;
+import io.github.astatine202.scras.backend.toolchain.ToolTaskResult;
+import io.github.astatine202.scras.backend.toolchain.UnknownWorkerException;
+import io.github.astatine202.scras.backend.toolchain.WorkerTransport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * 通过协调节点的 /api/workers 接口通信 (JSON over HTTP).
+ */
+public class HttpWorkerTransport implements WorkerTransport {
+    private static final String TOKEN_HEADER = "X-Worker-Token";
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI base;
+    private final String token;
+
+    public HttpWorkerTransport(URI coordinator, String token) {
+        String uri = coordinator.toString();
+        this.base = URI.create((uri.endsWith("/") ? uri : uri + "/") + "api/workers/");
+        this.token = token;
+    }
+
+    @Override
+    public String register(Registration registration) throws IOException, InterruptedException {
+        HttpResponse<String> response = post("register", registration, Duration.ofSeconds(30));
+        return mapper.readTree(response.body()).get("workerId").asText();
+    }
+
+    @Override
+    public Heartbeat heartbeat(String workerId) throws IOException, InterruptedException {
+        HttpResponse<String> response = post(workerId + "/heartbeat", null, Duration.ofSeconds(30));
+        return mapper.readValue(response.body(), Heartbeat.class);
+    }
+
+    @Override
+    public ToolTask poll(String workerId, Duration wait) throws IOException, InterruptedException {
+        // 协调节点按自己的 poll-wait 挂起请求, 这里留出余量
+        HttpResponse<String> response = post(workerId + "/poll", null, wait.plusSeconds(30));
+        if (response.statusCode() == 204) {
+            return null;
+        }
+        return mapper.readValue(response.body(), ToolTask.class);
+    }
+
+    @Override
+    public void complete(String workerId, ToolTaskResult result) throws IOException, InterruptedException {
+        post(workerId + "/complete", result, Duration.ofSeconds(30));
+    }
+
+    // 中断原样抛出, 由 ToolWorker 区分停止和取消
+    private HttpResponse<String> post(String path, Object body, Duration timeout)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve(path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)));
+        if (token != null) {
+            request.header(TOKEN_HEADER, token);
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 410) {
+            throw new UnknownWorkerException(path.substring(0, path.indexOf('/')));
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("POST " + path + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,203 @@
+package io.github.astatine202.scras.backend.worker;
+
+import io.github.astatine202.scras.backend.toolchain.ToolTask;
+import io.github.astatine202.scras.backend.toolchain.ToolTaskResult;
+import io.github.astatine202.scras.backend.toolchain.ToolTimeoutException;
+import io.github.astatine202.scras.backend.toolchain.ToolchainExecutor;
+import io.github.astatine202.scras.backend.toolchain.UnknownWorkerException;
+import io.github.astatine202.scras.backend.toolchain.WorkerTransport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * worker 一侧: 向协调节点注册, 用 slots 个线程拉取并执行工具调用, 另一个线程定期发送心跳.
+ * <p>
+ * 协调节点失联或重启后自动重新注册; 心跳返回的已取消任务通过中断执行线程终止
+ * (执行后端在中断时终止子进程).
+ */
+@Slf4j
+public class ToolWorker {
+    private static final Duration POLL_WAIT = Duration.ofSeconds(20);
+    // 与协调节点通信失败后的重试间隔, 上报结果时逐次加倍
+    private static final Duration BACKOFF = Duration.ofSeconds(2);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final WorkerTransport transport;
+    private final ToolchainExecutor executor;
+    private final Path root;
+    private final WorkerTransport.Registration registration;
+    private final Duration heartbeatInterval;
+
+    private final List<Thread> threads = new ArrayList<>();
+    // 正在执行的任务 -> 执行线程, 用于取消
+    private final Map<String, Thread> running = new HashMap<>();
+    private volatile String workerId;
+    private volatile boolean stopped;
+
+    public ToolWorker(WorkerTransport transport, ToolchainExecutor executor, Path root, String name, int slots,
+            Duration heartbeatInterval) {
+        this.transport = transport;
+        this.executor = executor;
+        this.root = root.toAbsolutePath().normalize();
+        this.registration = new WorkerTransport.Registration(name, executor.version(), slots);
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public synchronized void start() throws IOException, InterruptedException {
+        workerId = transport.register(registration);
+        log.info("Registered with coordinator as {}", workerId);
+        for (int i = 0; i < registration.slots(); i++) {
+            threads.add(Thread.ofPlatform().name(registration.name() + "-slot-" + i).start(this::pollLoop));
+        }
+        threads.add(Thread.ofPlatform().name(registration.name() + "-heartbeat").daemon().start(this::heartbeatLoop));
+    }
+
+    public void stop() throws InterruptedException {
+        List<Thread> started;
+        synchronized (this) {
+            stopped = true;
+            started = List.copyOf(threads);
+        }
+        started.forEach(Thread::interrupt);
+        for (Thread thread : started) {
+            thread.join();
+        }
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    private void pollLoop() {
+        while (!stopped) {
+            String id = workerId;
+            try {
+                ToolTask task = transport.poll(id, POLL_WAIT);
+                if (task != null) {
+                    report(id, execute(task));
+                }
+            } catch (InterruptedException e) {
+                // 停止, 或任务执行期间被取消 (此时不上报结果)
+                if (stopped) {
+                    return;
+                }
+            } catch (UnknownWorkerException e) {
+                reregister(id);
+            } catch (IOException e) {
+                if (!stopped) {
+                    log.warn("Coordinator unreachable: {}", e.getMessage());
+                    pause(BACKOFF);
+                }
+            }
+        }
+    }
+
+    private ToolTaskResult execute(ToolTask task) throws InterruptedException {
+        synchronized (running) {
+            running.put(task.id(), Thread.currentThread());
+        }
+        try {
+            int exitCode = executor.run(task.toCommand(root));
+            return new ToolTaskResult(task.id(), exitCode, false, null);
+        } catch (ToolTimeoutException e) {
+            return new ToolTaskResult(task.id(), -1, true, null);
+        } catch (IOException e) {
+            log.warn("Task {} ({}) failed", task.id(), task.tool(), e);
+            return new ToolTaskResult(task.id(), -1, false, e.getMessage());
+        } catch (SecurityException e) {
+            log.warn("Rejected task {}: {}", task.id(), e.getMessage());
+            return new ToolTaskResult(task.id(), -1, false, e.getMessage());
+        } finally {
+            synchronized (running) {
+                running.remove(task.id());
+                // 取消可能在 run 返回之后才到达, 清除残留的中断, 以免上报结果时失败
+                Thread.interrupted();
+            }
+        }
+    }
+
+    // 协调节点只在心跳超时后才重新分派任务, 丢失的结果会让分析一直等到超时,
+    // 因此一直重试, 直到成功、停止或协调节点不再认识本 worker (此时任务已重新排队)
+    private void report(String id, ToolTaskResult result) throws IOException, InterruptedException {
+        Duration delay = BACKOFF;
+        while (true) {
+            try {
+                transport.complete(id, result);
+                return;
+            } catch (UnknownWorkerException e) {
+                throw e;
+            } catch (IOException e) {
+                if (stopped) {
+                    return;
+                }
+                log.warn("Reporting task {} failed, retrying in {}s: {}", result.taskId(), delay.toSeconds(),
+                        e.getMessage());
+                pause(delay);
+                Duration next = delay.multipliedBy(2);
+                delay = next.compareTo(MAX_BACKOFF) < 0 ? next : MAX_BACKOFF;
+            }
+        }
+    }
+
+    private void heartbeatLoop() {
+        while (!stopped) {
+            String id = workerId;
+            try {
+                WorkerTransport.Heartbeat heartbeat = transport.heartbeat(id);
+                if (!heartbeat.registered()) {
+                    reregister(id);
+                }
+                synchronized (running) {
+                    for (String taskId : heartbeat.cancelled()) {
+                        Thread thread = running.get(taskId);
+                        if (thread != null) {
+                            log.info("Task {} cancelled by coordinator", taskId);
+                            thread.interrupt();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Heartbeat failed: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                Thread.sleep(heartbeatInterval);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // 多个线程可能同时发现失联, 只有第一个重新注册
+    private synchronized void reregister(String staleId) {
+        if (stopped || !staleId.equals(workerId)) {
+            return;
+        }
+        try {
+            workerId = transport.register(registration);
+            log.info("Re-registered with coordinator as {}", workerId);
+        } catch (IOException e) {
+            log.warn("Re-registration failed: {}", e.getMessage());
+            pause(BACKOFF);
+        } catch (InterruptedException e) {
+            log.debug("Re-registration interrupted");
+        }
+    }
+
+    // 被中断时提前返回; 只有 stop() 会在任务之外中断线程, 调用方的循环随即退出
+    private void pause(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            log.debug("Backoff interrupted");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.astatine202.scras.backend.worker;
+
+import io.github.astatine202.scras.backend.config.ToolchainConfig;
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+import io.github.astatine202.scras.backend.toolchain.PooledDockerToolchainExecutor;
+import io.github.astatine202.scras.backend.toolchain.ToolchainExecutor;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 独立的 worker 进程, 不启动 Spring 容器. 与协调节点共享工具链根目录, 例如:
+ * <pre>
+ * java -Dloader.main=io.github.astatine202.scras.backend.worker.WorkerMain -cp backend.jar \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     --coordinator=http://localhost:8080 --root=/srv/scras --mode=docker --slots=4 --token=...
+ * </pre>
+ * 可选参数: --name, --image, --bin-dir, --pool-size, --memory-limit, --heartbeat=5s.
+ * --token 须与协调节点的 scras.worker.token 一致; --mode 须与协调节点的 scras.toolchain.worker-mode 一致,
+ * 否则注册会被拒绝.
+ */
+public class WorkerMain {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        if (options.get("token") == null || options.get("token").isBlank()) {
+            throw new IllegalArgumentException("--token is required");
+        }
+
+        ToolchainProperties properties = new ToolchainProperties();
+        properties.setMode(ToolchainProperties.Mode.valueOf(options.getOrDefault("mode", "docker").toUpperCase()));
+        properties.setRoot(Path.of(options.getOrDefault("root", "")));
+        if (options.containsKey("image")) {
+            properties.setImage(options.get("image"));
+        }
+        if (options.containsKey("bin-dir")) {
+            properties.setBinDir(Path.of(options.get("bin-dir")));
+        }
+        if (options.containsKey("pool-size")) {
+            properties.setPoolSize(Integer.parseInt(options.get("pool-size")));
+        }
+        if (options.containsKey("memory-limit")) {
+            properties.setMemoryLimit(DataSize.parse(options.get("memory-limit")));
+        }
+        int slots = Integer.parseInt(options.getOrDefault("slots",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        String name = options.getOrDefault("name", ManagementFactory.getRuntimeMXBean().getName());
+        Duration heartbeat = Duration.parse("PT" + options.getOrDefault("heartbeat", "5s"));
+
+        ToolchainExecutor executor = ToolchainConfig.create(properties.getMode(), properties);
+        if (executor instanceof PooledDockerToolchainExecutor pool) {
+            pool.start();
+        }
+        ToolWorker worker = new ToolWorker(
+                new HttpWorkerTransport(URI.create(options.getOrDefault("coordinator", "http://localhost:8080")),
+                        options.get("token")),
+                executor, properties.getRoot(), name, slots, heartbeat);
+        worker.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                worker.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (executor instanceof PooledDockerToolchainExecutor pool) {
+                pool.stop();
+            }
+        }));
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallGraphTests {
+
+	@Test
+	void computesDepthOverCondensedCycles() {
+		// main -> a -> b -> a (递归), b -> leaf, main -> leaf
+		CallGraph graph = CallGraph.builder()
+				.addEdge("main", "a")
+				.addEdge("a", "b")
+				.addEdge("b", "a")
+				.addEdge("b", "leaf")
+				.addEdge("main", "leaf")
+				.addEdge("main", "leaf")
+				.build();
+
+		int[] depths = graph.depths();
+		int main = graph.indexOf("main");
+		int a = graph.indexOf("a");
+		int b = graph.indexOf("b");
+		int leaf = graph.indexOf("leaf");
+
+		assertEquals(0, depths[leaf]);
+		assertEquals(1, depths[a]);
+		assertEquals(1, depths[b]);
+		assertEquals(2, depths[main]);
+		assertEquals(3, graph.fanOut(main));
+		assertEquals(3, graph.callCount(leaf));
+		assertEquals(-1, graph.indexOf("missing"));
+	}
+
+	@Test
+	void handlesDeepChainsWithoutRecursion() {
+		int n = 200_000;
+		CallGraph.Builder builder = CallGraph.builder();
+		for (int i = 0; i < n; i++) {
+			builder.node("f" + i);
+		}
+		for (int i = 0; i + 1 < n; i++) {
+			builder.addEdge(i, i + 1);
+		}
+		builder.addEdge(n - 1, n / 2);
+
+		int[] depths = builder.build().depths();
+
+		assertEquals(n / 2, depths[0]);
+		assertEquals(0, depths[n - 1]);
+		assertEquals(0, depths[n / 2]);
+	}
+}
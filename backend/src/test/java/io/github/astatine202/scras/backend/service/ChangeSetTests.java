@@ -0,0 +1,46 @@
+package io.github.astatine202.scras.backend.service;
+
+import com.github.difflib.DiffUtils;
+import io.github.astatine202.scras.backend.model.LineRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeSetTests {
+
+	@Test
+	void mapsDeltasToRevisionLines() {
+		ChangeSet changes = new ChangeSet();
+		List<String> base = List.of("a", "b", "c", "d", "e", "f");
+
+		changes.add("mod.c", DiffUtils.diff(base, List.of("a", "B", "c", "d", "e", "f")));
+		changes.add("ins.c", DiffUtils.diff(base, List.of("a", "b", "x", "y", "c", "d", "e", "f")));
+		// 纯删除: 修订版中删除位置前后的两行
+		changes.add("del.c", DiffUtils.diff(base, List.of("a", "b", "e", "f")));
+		changes.add("head.c", DiffUtils.diff(base, List.of("b", "c", "d", "e", "f")));
+		changes.add("same.c", DiffUtils.diff(base, base));
+
+		assertEquals(List.of(
+				new LineRange("mod.c", 2, 2),
+				new LineRange("ins.c", 3, 4),
+				new LineRange("del.c", 2, 3),
+				new LineRange("head.c", 1, 1)), changes.getChangedLines());
+		assertEquals(Set.of("mod.c", "ins.c", "del.c", "head.c"), changes.getChangedFiles());
+	}
+
+	@Test
+	void tracksDeletedFiles() {
+		ChangeSet changes = new ChangeSet();
+		assertTrue(changes.isEmpty());
+
+		changes.delete("old.c");
+		changes.add("new.c", DiffUtils.diff(List.of(), List.of("int x;")));
+
+		assertFalse(changes.isEmpty());
+		assertEquals(Set.of("old.c"), changes.getDeletedFiles());
+		assertEquals(List.of("new.c", "old.c"), List.copyOf(changes.getTouchedFiles()));
+	}
+}
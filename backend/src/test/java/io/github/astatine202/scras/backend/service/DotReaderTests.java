@@ -0,0 +1,75 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DotReaderTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readsNodesAndEdges() throws Exception {
+		Path dot = dir.resolve("callgraph.dot");
+		Files.writeString(dot, """
+				digraph "Call graph" {
+				\tlabel="Call graph";
+
+				\tNode0x1 [shape=record,label="{external node}"];\r
+				\tNode0x1 -> Node0x2;
+				\tNode0x2 [shape=record,label="{main}"];
+				\tNode0x2:s0 -> Node0x3:n;
+				\tNode0x3 [shape=record];
+				\tNode0x3 -> Node0x4
+				\tEdge0x3 -> Node0x4;
+				}
+				""");
+
+		List<String> records = new ArrayList<>();
+		new DotReader().read(dot, new DotReader.Handler() {
+			@Override
+			public void node(byte[] buf, int idStart, int idEnd, int labelStart, int labelEnd) {
+				records.add(DotReader.string(buf, idStart, idEnd) + "="
+						+ (labelStart < 0 ? null : DotReader.string(buf, labelStart, labelEnd)));
+			}
+
+			@Override
+			public void edge(byte[] buf, int fromStart, int fromEnd, int toStart, int toEnd) {
+				records.add(DotReader.string(buf, fromStart, fromEnd) + "->" + DotReader.string(buf, toStart, toEnd));
+			}
+		});
+
+		assertEquals(List.of("Node0x1=external node", "Node0x1->Node0x2", "Node0x2=main",
+				"Node0x2->Node0x3", "Node0x3=null"), records);
+	}
+
+	@Test
+	void computesMcCabeComplexityPerFunction() throws Exception {
+		Path cfg = Files.createDirectories(dir.resolve("cfg"));
+		for (int i = 0; i < 200; i++) {
+			StringBuilder dot = new StringBuilder("digraph \"CFG for f" + i + "\" {\n");
+			for (int n = 0; n <= i; n++) {
+				dot.append("\tNode0x").append(n).append(" [shape=record,label=\"{%").append(n).append(":\\l}\"];\n");
+			}
+			// 一条链加一条回边: E = N, 复杂度为 2
+			for (int n = 0; n < i; n++) {
+				dot.append("\tNode0x").append(n).append(":s0 -> Node0x").append(n + 1).append(";\n");
+			}
+			dot.append("\tNode0x").append(i).append(" -> Node0x0;\n}\n");
+			Files.writeString(cfg.resolve("cfg.f" + i + ".dot"), dot);
+		}
+
+		Map<String, Integer> complexity = new CallGraphService(null, null, null).calMcCabeComplexity(cfg);
+
+		assertEquals(200, complexity.size());
+		complexity.values().forEach(value -> assertEquals(2, value));
+	}
+}
@@ -0,0 +1,63 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.model.LineRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImpactServiceTests {
+	private static final Charset GBK = Charset.forName("GBK");
+
+	@TempDir
+	Path project;
+
+	@Test
+	void appliesDiffWithRenamesAndDeletes() throws Exception {
+		Files.createDirectories(project.resolve("src"));
+		Files.write(project.resolve("main.c"), "// 入口\nint main() {\n  return f();\n}\n".getBytes(GBK));
+		Files.writeString(project.resolve("src/f.c"), "int f() {\n  return 0;\n}\n");
+		Files.writeString(project.resolve("src/old.c"), "int g;\n");
+		String diff = """
+				--- a/demo/main.c
+				+++ b/demo/main.c
+				@@ -1,4 +1,4 @@
+				 // 入口
+				 int main() {
+				-  return f();
+				+  return f() + 1;
+				 }
+				--- a/demo/src/f.c
+				+++ b/demo/src/util.c
+				@@ -1,3 +1,3 @@
+				 int f() {
+				-  return 0;
+				+  return 2;
+				 }
+				--- a/demo/src/old.c
+				+++ /dev/null
+				@@ -1 +0,0 @@
+				-int g;
+				""";
+
+		ChangeSet changes = ImpactService.applyDiff(project, "demo", new ByteArrayInputStream(diff.getBytes(GBK)));
+
+		// GBK 注释的字节原样保留
+		assertArrayEquals("// 入口\nint main() {\n  return f() + 1;\n}\n".getBytes(GBK),
+				Files.readAllBytes(project.resolve("main.c")));
+		assertEquals("int f() {\n  return 2;\n}\n", Files.readString(project.resolve("src/util.c")));
+		assertFalse(Files.exists(project.resolve("src/f.c")));
+		assertFalse(Files.exists(project.resolve("src/old.c")));
+		assertEquals(Set.of("main.c", "src/util.c"), changes.getChangedFiles());
+		assertEquals(Set.of("src/f.c", "src/old.c"), changes.getDeletedFiles());
+		assertEquals(List.of(new LineRange("main.c", 3, 3), new LineRange("src/util.c", 2, 2)),
+				changes.getChangedLines());
+	}
+}
@@ -0,0 +1,81 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.config.IrCacheProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IrCacheTests {
+
+	@TempDir
+	Path dir;
+
+	private IrCache cache(long maxBytes) {
+		IrCacheProperties properties = new IrCacheProperties();
+		properties.setDir(dir.resolve("cache"));
+		properties.setMaxSize(DataSize.ofBytes(maxBytes));
+		IrCache cache = new IrCache(properties);
+		cache.load();
+		return cache;
+	}
+
+	@Test
+	void relocatesSourceRootInMetadata() throws Exception {
+		IrCache cache = cache(1 << 20);
+		Path compiled = dir.resolve("a.ll");
+		Files.writeString(compiled, """
+				@.str = private constant [20 x i8] c"/ws/one/proj/a.c\\00"
+				!1 = metadata !{metadata !"/ws/one/proj/a.c", metadata !"/workspace"}
+				""");
+		String key = IrCache.key("int a;".getBytes());
+		cache.store(key, compiled, "/ws/one/proj");
+
+		Path target = dir.resolve("b.ll");
+		assertTrue(cache.fetch(key, target, "/ws/two/proj"));
+		assertEquals("""
+				@.str = private constant [20 x i8] c"/ws/one/proj/a.c\\00"
+				!1 = metadata !{metadata !"/ws/two/proj/a.c", metadata !"/workspace"}
+				""", Files.readString(target));
+		assertFalse(cache.fetch(IrCache.key("int b;".getBytes()), target, "/ws/two/proj"));
+	}
+
+	@Test
+	void copiesBitcodeUnchanged() throws Exception {
+		IrCache cache = cache(1 << 20);
+		Path compiled = dir.resolve("a.bc");
+		// 位码中的 "!" 字节和源码路径都不能改动
+		byte[] bitcode = "BC\u00c0\u00de\n!/ws/one/proj/a.c".getBytes(StandardCharsets.ISO_8859_1);
+		Files.write(compiled, bitcode);
+		String key = IrCache.key("int a;".getBytes());
+		cache.store(key, compiled, "/ws/one/proj");
+
+		Path target = dir.resolve("b.bc");
+		assertTrue(cache.fetch(key, target, "/ws/two/proj"));
+		assertArrayEquals(bitcode, Files.readAllBytes(target));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsed() throws Exception {
+		IrCache cache = cache(25);
+		Path compiled = dir.resolve("x.ll");
+		Files.writeString(compiled, "0123456789");
+		Path target = dir.resolve("y.ll");
+
+		cache.store("aa01", compiled, "/root");
+		cache.store("aa02", compiled, "/root");
+		assertTrue(cache.fetch("aa01", target, "/root"));
+		cache.store("aa03", compiled, "/root");
+
+		assertTrue(cache.fetch("aa01", target, "/root"));
+		assertFalse(cache.fetch("aa02", target, "/root"));
+		assertTrue(cache.fetch("aa03", target, "/root"));
+		// 重启后仍保留
+		assertTrue(cache(25).fetch("aa03", target, "/root"));
+	}
+}
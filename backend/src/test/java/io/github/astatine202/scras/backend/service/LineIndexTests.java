@@ -0,0 +1,46 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineIndexTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void findsCriteriaReachingLineRanges() throws Exception {
+		Path fwd = dir.resolve("output_Fwd.txt");
+		Files.writeString(fwd, """
+				x@main {"/w/demo/a.c: [3, 5, 12]", "/w/demo/b.c: [7]"}
+				y@main {"/w/demo/a.c: [5, 6]"}
+				g {"/w/demo/b.c: [1, 7]"}
+				""");
+		Path slices = dir.resolve("slices.bin");
+		SliceStore.write(SliceIndex.parse(fwd, "demo"), slices);
+		SliceStore store = SliceStore.open(slices);
+		LineIndex index = LineIndex.build(store);
+
+		assertEquals(List.of("x@main", "y@main"), query(store, index, "a.c", 4, 5));
+		assertEquals(List.of("y@main"), query(store, index, "a.c", 6, 11));
+		assertEquals(List.of("g@", "x@main"), query(store, index, "b.c", 7, 7));
+		assertEquals(List.of(), query(store, index, "a.c", 13, 100));
+		assertEquals(List.of(), query(store, index, "c.c", 1, 100));
+	}
+
+	private static List<String> query(SliceStore store, LineIndex index, String file, int from, int to) {
+		BitSet hits = new BitSet();
+		index.criteria(file, from, to, hits);
+		List<String> keys = new ArrayList<>();
+		hits.stream().forEach(i -> keys.add(SliceIndex.key(store.var(i), store.func(i))));
+		return keys.stream().sorted().toList();
+	}
+}
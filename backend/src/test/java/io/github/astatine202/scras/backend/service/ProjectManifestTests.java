@@ -0,0 +1,68 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectManifestTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void scansFilesInOnePass() throws Exception {
+		Files.createDirectories(dir.resolve("src/util"));
+		Files.writeString(dir.resolve("main.c"), "#include \"util.h\"\nint main() {\n  return f();\n}\n");
+		Files.writeString(dir.resolve("src/util/f.c"), "int f() { return 0; }");
+		Files.writeString(dir.resolve("src/util.h"), "int f();\n");
+		Files.writeString(dir.resolve("README"), "");
+
+		ProjectManifest manifest = scan();
+
+		assertEquals(List.of("README", "main.c", "src/util.h", "src/util/f.c"),
+				manifest.getFiles().stream().map(ProjectManifest.Entry::path).toList());
+		assertTrue(manifest.getDirectories().containsAll(List.of("", "src", "src/util")));
+		assertEquals(List.of("main.c", "src/util/f.c"),
+				manifest.sources().stream().map(ProjectManifest.Entry::path).toList());
+		assertEquals(5, manifest.totalSourceLines());
+		assertEquals(0, manifest.get("README").lines());
+		assertEquals("f.c", manifest.get("src/util/f.c").name());
+
+		byte[] content = Files.readAllBytes(dir.resolve("main.c"));
+		assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)),
+				manifest.get("main.c").hash());
+		assertEquals(content.length, manifest.get("main.c").size());
+	}
+
+	@Test
+	void headerDigestTracksHeadersOnly() throws Exception {
+		Files.writeString(dir.resolve("a.c"), "int a;\n");
+		Files.writeString(dir.resolve("a.h"), "extern int a;\n");
+		byte[] digest = scan().headerDigest();
+
+		Files.writeString(dir.resolve("a.c"), "int a = 1;\n");
+		assertArrayEquals(digest, scan().headerDigest());
+
+		Files.writeString(dir.resolve("a.h"), "extern int a, b;\n");
+		assertFalse(Arrays.equals(digest, scan().headerDigest()));
+	}
+
+	private ProjectManifest scan() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			return ProjectManifest.scan(dir, "demo", executor);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.config.ResultCacheProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTests {
+
+	@TempDir
+	Path dir;
+
+	private ResultCache cache(long maxBytes, long memoryBytes) {
+		ResultCacheProperties properties = new ResultCacheProperties();
+		properties.setDir(dir.resolve("cache"));
+		properties.setMaxSize(DataSize.ofBytes(maxBytes));
+		properties.setMemoryMaxSize(DataSize.ofBytes(memoryBytes));
+		ResultCache cache = new ResultCache(properties);
+		cache.load();
+		return cache;
+	}
+
+	// 一次分析的产物: 切片存储和链接后的 IR
+	private Path analysis(String name) throws Exception {
+		Path out = Files.createDirectories(dir.resolve(name));
+		Path fwd = out.resolve(Workspace.FILE_FWD);
+		Files.writeString(fwd, "Forward slicing results:\nx@main {\"/ws/one/demo/a.c: [1, 2]\"}\n");
+		SliceStore.write(SliceIndex.parse(fwd, "demo"), out.resolve(Workspace.FILE_SLICES));
+		Files.writeString(out.resolve(Workspace.FILE_LL), "!1 = metadata !{metadata !\"/ws/one/demo/a.c\"}\n");
+		return out;
+	}
+
+	@Test
+	void survivesRestartAndRelocatesIr() throws Exception {
+		Path out = analysis("one");
+		String key = IrCache.key("demo".getBytes());
+		cache(1 << 20, 1 << 20).store(key, out.resolve(Workspace.FILE_SLICES), out.resolve(Workspace.FILE_LL),
+				"/ws/one/demo");
+
+		ResultCache restarted = cache(1 << 20, 1 << 20);
+		assertFalse(restarted.inMemory(key));
+		ResultCache.Result result = restarted.fetch(key);
+		assertNotNull(result);
+		assertArrayEquals(new int[] { 1, 2 }, result.sliceStore().get("x", "main").get("a.c"));
+		assertTrue(restarted.inMemory(key));
+		assertSame(result, restarted.fetch(key));
+
+		Path target = dir.resolve("two.ll");
+		assertTrue(restarted.restoreIr(key, result, target, "/ws/two/demo"));
+		assertEquals("!1 = metadata !{metadata !\"/ws/two/demo/a.c\"}\n", Files.readString(target));
+		assertNull(restarted.fetch(IrCache.key("other".getBytes())));
+	}
+
+	@Test
+	void evictsEachTierByWeight() throws Exception {
+		Path out = analysis("one");
+		// IR 中的根目录替换为占位符后略长
+		long entrySize = Files.size(out.resolve(Workspace.FILE_SLICES)) + Files.size(out.resolve(Workspace.FILE_LL)) + 32;
+		// 磁盘层容纳两个条目, 内存层只容纳一个
+		ResultCache cache = cache(2 * entrySize, 2 * Files.size(out.resolve(Workspace.FILE_SLICES)) + 100);
+		for (String key : new String[] { "aa01", "aa02" }) {
+			cache.store(key, out.resolve(Workspace.FILE_SLICES), out.resolve(Workspace.FILE_LL), "/ws/one/demo");
+		}
+		assertNotNull(cache.fetch("aa01"));
+		assertNotNull(cache.fetch("aa02"));
+		assertTrue(cache.inMemory("aa02"));
+		assertFalse(cache.inMemory("aa01"));
+
+		cache.store("aa03", out.resolve(Workspace.FILE_SLICES), out.resolve(Workspace.FILE_LL), "/ws/one/demo");
+		assertNull(cache.fetch("aa01"));
+		assertNotNull(cache.fetch("aa02"));
+		assertNotNull(cache.fetch("aa03"));
+	}
+}
@@ -0,0 +1,58 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.config.RiskProperties;
+import io.github.astatine202.scras.backend.model.FunctionRisk;
+import io.github.astatine202.scras.backend.model.NodeInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RiskRankingTests {
+
+	@Test
+	void pagesInDescendingScoreOrder() {
+		Random random = new Random(42);
+		List<FunctionRisk> risks = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			risks.add(new FunctionRisk("f" + i, random.nextInt(50) / 10.0, 0, 0, 0, 0, 0));
+		}
+		List<FunctionRisk> expected = risks.stream()
+				.sorted(Comparator.comparingDouble(FunctionRisk::getScore).reversed()
+						.thenComparing(FunctionRisk::getFunction))
+				.toList();
+
+		RiskRanking ranking = new RiskRanking(risks);
+
+		assertEquals(500, ranking.size());
+		assertEquals(expected.subList(20, 40), ranking.page(20, 20));
+		assertEquals(expected.subList(0, 20), ranking.page(0, 20));
+		assertEquals(expected.subList(490, 500), ranking.page(490, 20));
+		assertEquals(List.of(), ranking.page(500, 20));
+	}
+
+	@Test
+	void weightsNormalisedMetrics() {
+		RiskProperties weights = new RiskProperties();
+		weights.setDepth(0);
+		weights.setSliceSize(2.0);
+		RiskService service = new RiskService(weights, null, null);
+		Map<String, NodeInfo> nodes = Map.of(
+				"main", new NodeInfo("Node0x1", 3, 0, 2, 4),
+				"foo", new NodeInfo("Node0x2", 0, 2, 0, 1));
+
+		List<FunctionRisk> top = service.rank(nodes, Map.of("main", 10, "foo", 40)).page(0, 10);
+
+		assertEquals("foo", top.get(0).getFunction());
+		// callCount 1 + mccabe 0.25 + sliceSize 2 * 1
+		assertEquals(3.25, top.get(0).getScore(), 1e-9);
+		// fanOut 1 + mccabe 1 + sliceSize 2 * 0.25
+		assertEquals(2.5, top.get(1).getScore(), 1e-9);
+		assertEquals(40, top.get(0).getSliceSize());
+	}
+}
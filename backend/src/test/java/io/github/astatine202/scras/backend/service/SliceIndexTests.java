@@ -0,0 +1,47 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SliceIndexTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void indexesProjectSlicesByCriterion() throws Exception {
+		Path fwd = dir.resolve("output_Fwd.txt");
+		Files.writeString(fwd, """
+				Forward slicing results:
+				x@main {"/workspace/temp/input/demo/src/a.c: [12, 3, 3]", "/workspace/temp/input/demo/b.c: [7]"}
+				g {"/workspace/temp/input/demo/src/a.c: [1]"}
+				x@main {"/workspace/temp/input/demo/src/a.c: [5]"}
+				""");
+
+		SliceIndex index = SliceIndex.parse(fwd, "demo");
+
+		assertEquals(2, index.size());
+		Map<String, int[]> x = index.get("x", "main");
+		assertArrayEquals(new int[] { 3, 5, 12 }, x.get("src/a.c"));
+		assertArrayEquals(new int[] { 7 }, x.get("b.c"));
+		assertArrayEquals(new int[] { 1 }, index.get("g", "").get("src/a.c"));
+		assertArrayEquals(new int[] { 3, 5, 7, 12 }, index.union("x", "main"));
+		assertTrue(index.get("y", "main").isEmpty());
+	}
+
+	@Test
+	void keepsFullPathWithoutProject() throws Exception {
+		Path fwd = dir.resolve("output_Fwd.txt");
+		Files.writeString(fwd, "sum@foo {\"/workspace/temp/input/t.c: [4, 2]\"}\n");
+
+		SliceIndex index = SliceIndex.parse(fwd, null);
+
+		assertArrayEquals(new int[] { 2, 4 }, index.get("sum", "foo").get("/workspace/temp/input/t.c"));
+	}
+}
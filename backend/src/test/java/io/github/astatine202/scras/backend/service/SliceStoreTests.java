@@ -0,0 +1,79 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SliceStoreTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void roundTripsSliceIndex() throws Exception {
+		Path fwd = dir.resolve("output_Fwd.txt");
+		StringBuilder content = new StringBuilder("Forward slicing results:\n");
+		content.append("x@main {\"/w/demo/src/a.c: [12, 3, 3, 100000]\", \"/w/demo/b.c: [7]\"}\n");
+		content.append("g {\"/w/demo/src/a.c: [1]\"}\n");
+		for (int i = 0; i < 1000; i++) {
+			content.append("v").append(i).append("@f").append(i % 17)
+					.append(" {\"/w/demo/b.c: [").append(i).append(", ").append(i + 300).append("]\"}\n");
+		}
+		Files.writeString(fwd, content);
+		SliceIndex index = SliceIndex.parse(fwd, "demo");
+		Path slices = dir.resolve("slices.bin");
+
+		SliceStore.write(index, slices);
+		SliceStore store = SliceStore.open(slices);
+
+		assertEquals(index.size(), store.size());
+		Map<String, int[]> x = store.get("x", "main");
+		assertArrayEquals(new int[] { 3, 12, 100000 }, x.get("src/a.c"));
+		assertArrayEquals(new int[] { 7 }, x.get("b.c"));
+		assertArrayEquals(new int[] { 3, 7, 12, 100000 }, store.union("x", "main"));
+		assertArrayEquals(new int[] { 1 }, store.get("g", null).get("src/a.c"));
+		assertArrayEquals(new int[] { 500, 800 }, store.get("v500", "f7").get("b.c"));
+		assertTrue(store.get("v500", "f8").isEmpty());
+		assertEquals(-1, store.find("y", "main"));
+
+		int criterion = store.find("v42", "f8");
+		assertEquals("v42", store.var(criterion));
+		assertEquals("f8", store.func(criterion));
+		index.entries().forEach((key, files) -> {
+			int at = key.indexOf('@');
+			Map<String, int[]> stored = store.get(key.substring(0, at), key.substring(at + 1));
+			assertEquals(files.keySet(), stored.keySet());
+			files.forEach((file, lines) -> assertArrayEquals(lines, stored.get(file)));
+		});
+	}
+
+	@Test
+	void rewriteLeavesOpenStoreIntact() throws Exception {
+		Path fwd = dir.resolve("output_Fwd.txt");
+		Path slices = dir.resolve("slices.bin");
+		StringBuilder content = new StringBuilder("Forward slicing results:\n");
+		for (int i = 0; i < 1000; i++) {
+			content.append("v").append(i).append("@main {\"/w/demo/a.c: [").append(i + 1).append("]\"}\n");
+		}
+		Files.writeString(fwd, content);
+		SliceStore.write(SliceIndex.parse(fwd, "demo"), slices);
+		SliceStore previous = SliceStore.open(slices);
+
+		// 重新分析得到更小的结果, 仍在使用的旧存储不受影响
+		Files.writeString(fwd, "Forward slicing results:\nx@main {\"/w/demo/a.c: [5]\"}\n");
+		SliceStore.write(SliceIndex.parse(fwd, "demo"), slices);
+
+		assertArrayEquals(new int[] { 1000 }, previous.get("v999", "main").get("a.c"));
+		SliceStore current = SliceStore.open(slices);
+		assertEquals(1, current.size());
+		assertArrayEquals(new int[] { 5 }, current.get("x", "main").get("a.c"));
+		try (var files = Files.list(dir)) {
+			assertEquals(2, files.count());
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package io.github.astatine202.scras.backend.service;
+
+import io.github.astatine202.scras.backend.config.ResultCacheProperties;
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+import io.github.astatine202.scras.backend.model.SliceBatchResult;
+import io.github.astatine202.scras.backend.model.SliceCriterion;
+import io.github.astatine202.scras.backend.toolchain.NativeToolchainExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlicingServiceTests {
+
+	@TempDir
+	Path dir;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private SlicingService service;
+	private final AtomicInteger runs = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		ToolchainProperties toolchainProperties = new ToolchainProperties();
+		toolchainProperties.setRoot(dir);
+		ResultCacheProperties cacheProperties = new ResultCacheProperties();
+		cacheProperties.setDir(dir.resolve("cache"));
+		ResultCache resultCache = new ResultCache(cacheProperties);
+		resultCache.load();
+		AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+		service = new SlicingService(executor, new NativeToolchainExecutor(toolchainProperties), toolchainProperties,
+				null, metrics, new ProjectScanner(executor, metrics), resultCache);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	// 内容相同的项目, 结果缓存键相同
+	private Workspace workspace(String id) throws IOException {
+		Workspace workspace = new Workspace(id, dir.resolve(id));
+		Path project = Files.createDirectories(workspace.getProjectDir("demo"));
+		Files.writeString(project.resolve("a.c"), "int x;\nint main() { return x; }\n");
+		Files.createDirectories(workspace.getOutputDir());
+		return workspace;
+	}
+
+	// 代替编译和切片: 计数并写出流水线的产物
+	private SlicingService.Pipeline pipeline(Workspace workspace, CountDownLatch started, CountDownLatch release) {
+		return () -> {
+			runs.incrementAndGet();
+			started.countDown();
+			release.await();
+			Path fwd = workspace.getFwdPath();
+			Files.writeString(fwd, "Forward slicing results:\nx@main {\"" + workspace.getProjectDir("demo")
+					.toAbsolutePath() + "/a.c: [1, 2]\"}\n");
+			SliceStore.write(SliceIndex.parse(fwd, "demo"), workspace.getSlicesPath());
+			Files.writeString(workspace.getLlPath(), "; ModuleID = 'demo'\n");
+			workspace.setSliceStore(SliceStore.open(workspace.getSlicesPath()));
+		};
+	}
+
+	private Future<?> analyze(Workspace workspace, AnalysisListener listener, SlicingService.Pipeline pipeline) {
+		return executor.submit(() -> {
+			service.analyzeOnce(workspace, "demo", listener, pipeline);
+			return null;
+		});
+	}
+
+	// 等待者进入等待阶段时计数
+	private static AnalysisListener waiting(CountDownLatch latch) {
+		return (stage, detail, completed, total) -> {
+			if (stage.equals(SlicingService.STAGE_WAIT) && completed == 0) {
+				latch.countDown();
+			}
+		};
+	}
+
+	@Test
+	void waiterReusesLeaderResult() throws Exception {
+		Workspace leader = workspace("one");
+		Workspace waiter = workspace("two");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch waiting = new CountDownLatch(1);
+
+		Future<?> first = analyze(leader, AnalysisListener.NONE, pipeline(leader, started, release));
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		Future<?> second = analyze(waiter, waiting(waiting), pipeline(waiter, started, release));
+		assertTrue(waiting.await(10, TimeUnit.SECONDS));
+		release.countDown();
+		first.get(10, TimeUnit.SECONDS);
+		second.get(10, TimeUnit.SECONDS);
+
+		assertEquals(1, runs.get());
+		assertArrayEquals(new int[] { 1, 2 }, waiter.getSliceStore().get("x", "main").get("a.c"));
+		assertTrue(Files.exists(waiter.getLlPath()));
+	}
+
+	@Test
+	void waiterTakesOverWhenLeaderFails() throws Exception {
+		Workspace leader = workspace("one");
+		Workspace waiter = workspace("two");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch failed = new CountDownLatch(1);
+		CountDownLatch waiting = new CountDownLatch(1);
+
+		Future<?> first = analyze(leader, AnalysisListener.NONE, () -> {
+			runs.incrementAndGet();
+			started.countDown();
+			failed.await();
+			throw new IOException("compile failed");
+		});
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		Future<?> second = analyze(waiter, waiting(waiting), pipeline(waiter, new CountDownLatch(1),
+				new CountDownLatch(0)));
+		assertTrue(waiting.await(10, TimeUnit.SECONDS));
+		failed.countDown();
+
+		assertThrows(Exception.class, () -> first.get(10, TimeUnit.SECONDS));
+		second.get(10, TimeUnit.SECONDS);
+		assertEquals(2, runs.get());
+		assertArrayEquals(new int[] { 1, 2 }, waiter.getSliceStore().get("x", "main").get("a.c"));
+	}
+
+	@Test
+	void waiterTakesOverWhenLeaderIsCancelled() throws Exception {
+		Workspace leader = workspace("one");
+		Workspace waiter = workspace("two");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch waiting = new CountDownLatch(1);
+
+		// 取消时中断流水线线程, 阻塞中的 await 抛出 InterruptedException
+		Future<?> first = analyze(leader, AnalysisListener.NONE, pipeline(leader, started, new CountDownLatch(1)));
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		Future<?> second = analyze(waiter, waiting(waiting), pipeline(waiter, new CountDownLatch(1),
+				new CountDownLatch(0)));
+		assertTrue(waiting.await(10, TimeUnit.SECONDS));
+		first.cancel(true);
+
+		second.get(10, TimeUnit.SECONDS);
+		assertEquals(2, runs.get());
+		assertNull(leader.getSliceStore());
+		assertArrayEquals(new int[] { 1, 2 }, waiter.getSliceStore().get("x", "main").get("a.c"));
+	}
+
+	@Test
+	void batchesExactAndWildcardCriteria() throws Exception {
+		Workspace workspace = workspace("one");
+		Files.writeString(workspace.getFwdPath(), """
+				Forward slicing results:
+				x@main {"/w/demo/a.c: [1, 2]", "/w/demo/b.c: [7]"}
+				y@main {"/w/demo/a.c: [2, 3]"}
+				y@f {"/w/demo/a.c: [10]"}
+				z@f {"/w/demo/b.c: [7, 8]"}
+				g {"/w/demo/a.c: [1]"}
+				""");
+		SliceStore.write(SliceIndex.parse(workspace.getFwdPath(), "demo"), workspace.getSlicesPath());
+		workspace.setSliceStore(SliceStore.open(workspace.getSlicesPath()));
+
+		// 精确条件与通配符混用, 只遍历一次切片数据
+		SliceBatchResult mixed = service.processBatch(workspace, List.of(
+				new SliceCriterion("x", "main"), new SliceCriterion("*", "f"), new SliceCriterion("g", "*"),
+				new SliceCriterion("missing", "main")), true);
+		assertEquals(Set.of("x@main", "y@f", "z@f", "g@"), mixed.getResults().keySet());
+		assertEquals(Map.of("a.c", List.of(1, 2), "b.c", List.of(7)), mixed.getResults().get("x@main"));
+		assertEquals(Map.of("a.c", List.of(1, 2, 10), "b.c", List.of(7, 8)), mixed.getUnion());
+
+		SliceBatchResult exact = service.processBatch(workspace, List.of(
+				new SliceCriterion("x", "main"), new SliceCriterion("y", "main"), new SliceCriterion("x", "main")),
+				true);
+		assertEquals(Set.of("x@main", "y@main"), exact.getResults().keySet());
+		assertEquals(Map.of("a.c", List.of(1, 2, 3), "b.c", List.of(7)), exact.getUnion());
+
+		SliceBatchResult all = service.processBatch(workspace, List.of(new SliceCriterion("*", "*")), false);
+		assertEquals(5, all.getResults().size());
+		assertNull(all.getUnion());
+	}
+}
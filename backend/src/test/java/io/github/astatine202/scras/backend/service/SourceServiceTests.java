@@ -0,0 +1,79 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceServiceTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readsLineRanges() throws Exception {
+		Path file = dir.resolve("a.c");
+		Files.writeString(file, "int x;\r\n\nint main() {\n  return x; // 返回\n}");
+		SourceFile source = SourceFile.open(file);
+
+		assertEquals(5, source.lineCount());
+		assertEquals(List.of("int x;", ""), source.lines(1, 2));
+		assertEquals(List.of("  return x; // 返回", "}"), source.lines(4, 100));
+		assertEquals(List.of(), source.lines(6, 10));
+		assertEquals(Files.readString(file), source.text());
+
+		// 末尾的换行符不算新的一行
+		Files.writeString(file, "a\nb\n");
+		assertEquals(List.of("a", "b"), SourceFile.open(file).lines(1, 3));
+		Files.writeString(file, "");
+		assertEquals(0, SourceFile.open(file).lineCount());
+	}
+
+	@Test
+	void reopensModifiedFiles() throws Exception {
+		Workspace workspace = new Workspace("w", dir);
+		Path file = workspace.getInputDir().resolve("src/a.c");
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, "one\n");
+		SourceService service = new SourceService();
+
+		SourceFile first = service.open(workspace, "src/a.c");
+		assertSame(first, service.open(workspace, "src/../src/a.c"));
+
+		Files.writeString(file, "one\ntwo\n");
+		Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+		SourceFile second = service.open(workspace, "src/a.c");
+		assertEquals(2, second.lineCount());
+		assertNotEquals(first.etag(), second.etag());
+
+		assertThrows(SecurityException.class, () -> service.open(workspace, "../output/output.ll"));
+	}
+
+	@Test
+	void matchesWeakAndListedETags() {
+		assertTrue(SourceService.matches("W/\"4-0\"", "\"4-0\""));
+		assertTrue(SourceService.matches("\"4-0\"", "W/\"4-0\""));
+		assertTrue(SourceService.matches("\"1-1\", \"4-0\"", "\"4-0\""));
+		assertTrue(SourceService.matches("*", "\"4-0\""));
+		assertFalse(SourceService.matches("\"4-1\"", "\"4-0\""));
+		assertFalse(SourceService.matches(null, "\"4-0\""));
+	}
+
+	@Test
+	void rejectsMissingFilesAndDirectories() throws Exception {
+		Workspace workspace = new Workspace("w", dir);
+		Files.createDirectories(workspace.getInputDir().resolve("src"));
+		SourceService service = new SourceService();
+
+		assertThrows(NoSuchFileException.class, () -> service.open(workspace, "src/missing.c"));
+		assertThrows(NoSuchFileException.class, () -> service.open(workspace, "src"));
+		assertThrows(NoSuchFileException.class, () -> service.open(workspace, ""));
+		assertThrows(SecurityException.class, () -> service.open(workspace, "../x.c"));
+	}
+}
@@ -0,0 +1,37 @@
+package io.github.astatine202.scras.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceTests {
+
+	@TempDir
+	Path root;
+
+	@Test
+	void projectDirStaysInsideInput() {
+		Workspace workspace = new Workspace("w", root.resolve("w"));
+
+		assertEquals(root.resolve("w/input/demo"), workspace.getProjectDir("demo"));
+		assertEquals(root.resolve("w/buffer/demo"), workspace.getProjectBufferDir("demo"));
+		for (String name : new String[] {"", ".", "..", "../other/input/demo", "a/b", "a\\b"}) {
+			assertThrows(SecurityException.class, () -> workspace.getProjectDir(name), name);
+		}
+		assertThrows(SecurityException.class, () -> workspace.getProjectDir(null));
+	}
+
+	@Test
+	void inputFileStaysInsideInput() {
+		Workspace workspace = new Workspace("w", root.resolve("w"));
+
+		assertEquals(root.resolve("w/input/a.c"), workspace.getInputFile("a.c"));
+		for (String name : new String[] {"", ".", "..", "../../other/input/x.c", "/etc/passwd"}) {
+			assertThrows(SecurityException.class, () -> workspace.getInputFile(name), name);
+		}
+		assertThrows(SecurityException.class, () -> workspace.getInputFile(null));
+	}
+}
@@ -0,0 +1,18 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+// 代替真实工具链的 shell 脚本, 供各执行后端的测试使用
+final class FakeBinaries {
+
+	private FakeBinaries() {
+	}
+
+	static void fakeBinary(Path binDir, String name, String script) throws Exception {
+		Path binary = binDir.resolve(name);
+		Files.writeString(binary, "#!/bin/sh\n" + script + "\n");
+		Files.setPosixFilePermissions(binary, PosixFilePermissions.fromString("rwxr-xr-x"));
+	}
+}
@@ -0,0 +1,62 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static io.github.astatine202.scras.backend.toolchain.FakeBinaries.fakeBinary;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NativeToolchainExecutorTests {
+
+	@TempDir
+	Path root;
+
+	private NativeToolchainExecutor executor(Path binDir) {
+		ToolchainProperties properties = new ToolchainProperties();
+		properties.setRoot(root);
+		properties.setBinDir(binDir);
+		properties.setBinaries(Map.of("llvm-link", "fake-link"));
+		return new NativeToolchainExecutor(properties);
+	}
+
+	@Test
+	void runsMappedBinaryInDirectory() throws Exception {
+		Path binDir = Files.createDirectories(root.resolve("bin"));
+		Path work = Files.createDirectories(root.resolve("work"));
+		fakeBinary(binDir, "fake-link", "pwd; echo \"$@\"");
+		Path out = root.resolve("out.txt");
+
+		NativeToolchainExecutor executor = executor(binDir);
+		int exit = executor.run(ToolCommand.of("llvm-link", "-S", executor.toolPath(work.resolve("a.ll")))
+				.setDirectory(work)
+				.setOutput(ProcessBuilder.Redirect.to(out.toFile())));
+
+		assertEquals(0, exit);
+		assertEquals(work.toRealPath() + "\n-S " + work.resolve("a.ll") + "\n", Files.readString(out));
+	}
+
+	@Test
+	void reportsExitCode() throws Exception {
+		Path binDir = Files.createDirectories(root.resolve("bin"));
+		fakeBinary(binDir, "clang", "exit 3");
+
+		assertEquals(3, executor(binDir).run(ToolCommand.of("clang")));
+	}
+
+	@Test
+	void appliesPerToolTimeout() throws Exception {
+		Path binDir = Files.createDirectories(root.resolve("bin"));
+		fakeBinary(binDir, "llvm-slicing", "sleep 30");
+		NativeToolchainExecutor executor = executor(binDir);
+		executor.properties.getTimeouts().put("llvm-slicing", Duration.ofMillis(200));
+
+		assertThrows(ToolTimeoutException.class, () -> executor.run(ToolCommand.of("llvm-slicing")));
+	}
+}
@@ -0,0 +1,51 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessRunnerTests {
+
+	private static final ProcessBuilder.Redirect PIPE = ProcessBuilder.Redirect.PIPE;
+
+	@Test
+	void drainsBothStreamsAndKeepsOnlyTail() throws Exception {
+		// 先写满 stderr 的管道再写 stdout, 顺序读取时会死锁
+		String script = "head -c 1000000 /dev/zero | tr '\\0' e >&2; echo err-end >&2; "
+				+ "head -c 1000000 /dev/zero | tr '\\0' o; echo out-end; exit 4";
+		ProcessRunner.Result result = new ProcessRunner(1024)
+				.run(List.of("sh", "-c", script), null, PIPE, PIPE, Duration.ofSeconds(30));
+
+		assertEquals(4, result.exitCode());
+		assertTrue(result.error().endsWith("eeeerr-end\n"));
+		assertTrue(result.error().startsWith("...[" + (1000008 - 1024) + " bytes truncated]"));
+		assertTrue(result.output().endsWith("oooout-end\n"));
+	}
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void killsProcessTreeOnTimeout() throws Exception {
+		Path pidFile = dir.resolve("child.pid");
+		long start = System.nanoTime();
+		assertThrows(ToolTimeoutException.class, () -> new ProcessRunner(1024)
+				.run(List.of("sh", "-c", "sleep 30 & echo $! > " + pidFile + "; sleep 30"), null, PIPE, PIPE,
+						Duration.ofMillis(500)));
+		assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+
+		// 后台的子进程也被终止
+		long child = Long.parseLong(Files.readString(pidFile).strip());
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (ProcessHandle.of(child).map(ProcessHandle::isAlive).orElse(false) && System.nanoTime() < deadline) {
+			Thread.sleep(50);
+		}
+		assertFalse(ProcessHandle.of(child).map(ProcessHandle::isAlive).orElse(false));
+	}
+}
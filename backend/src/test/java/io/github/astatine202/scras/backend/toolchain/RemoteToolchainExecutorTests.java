@@ -0,0 +1,297 @@
+package io.github.astatine202.scras.backend.toolchain;
+
+import io.github.astatine202.scras.backend.config.ToolchainProperties;
+import io.github.astatine202.scras.backend.config.WorkerProperties;
+import io.github.astatine202.scras.backend.worker.ToolWorker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.astatine202.scras.backend.toolchain.FakeBinaries.fakeBinary;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteToolchainExecutorTests {
+
+	@TempDir
+	Path root;
+
+	private ToolchainProperties properties;
+	private WorkerProperties workerProperties;
+	private final List<ToolWorker> workers = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		Path binDir = Files.createDirectories(root.resolve("bin"));
+		fakeBinary(binDir, "clang", "echo \"$@\"; exit 3");
+		fakeBinary(binDir, "llvm-slicing", "sleep 30");
+		fakeBinary(binDir, "opt", "echo \"$@\" >&2");
+		properties = new ToolchainProperties();
+		properties.setMode(ToolchainProperties.Mode.REMOTE);
+		properties.setWorkerMode(ToolchainProperties.Mode.NATIVE);
+		properties.setRoot(root);
+		properties.setBinDir(binDir);
+		workerProperties = new WorkerProperties();
+		workerProperties.setHeartbeatTimeout(Duration.ofMillis(300));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		for (ToolWorker worker : workers) {
+			worker.stop();
+		}
+	}
+
+	private WorkerCoordinator coordinator() {
+		return new WorkerCoordinator(workerProperties, new NativeToolchainExecutor(properties).version());
+	}
+
+	private void startWorker(WorkerCoordinator coordinator, String name) throws Exception {
+		ToolWorker worker = new ToolWorker(coordinator, new NativeToolchainExecutor(properties), root, name, 2,
+				Duration.ofMillis(50));
+		worker.start();
+		workers.add(worker);
+	}
+
+	@Test
+	void runsToolsOnWorkers() throws Exception {
+		WorkerCoordinator coordinator = coordinator();
+		startWorker(coordinator, "a");
+		startWorker(coordinator, "b");
+		RemoteToolchainExecutor executor = new RemoteToolchainExecutor(properties,
+				new NativeToolchainExecutor(properties), workerProperties, coordinator);
+		Path work = Files.createDirectories(root.resolve("work"));
+
+		List<CompletableFuture<Integer>> runs = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			Path out = work.resolve(i + ".txt");
+			ToolCommand command = ToolCommand.of("clang", executor.toolPath(work.resolve(i + ".c")))
+					.setDirectory(work)
+					.setOutput(ProcessBuilder.Redirect.to(out.toFile()));
+			runs.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					return executor.run(command);
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+		}
+
+		for (int i = 0; i < 8; i++) {
+			assertEquals(3, runs.get(i).get(30, TimeUnit.SECONDS));
+			assertEquals(work.resolve(i + ".c") + "\n", Files.readString(work.resolve(i + ".txt")));
+		}
+		assertEquals(2, coordinator.workers().size());
+	}
+
+	@Test
+	void retriesReportingResult() throws Exception {
+		WorkerCoordinator coordinator = coordinator();
+		AtomicInteger failures = new AtomicInteger();
+		// 第一次上报时协调节点暂时不可达
+		WorkerTransport transport = new InProcessTransport(coordinator) {
+			@Override
+			public void complete(String workerId, ToolTaskResult result) throws IOException, InterruptedException {
+				if (failures.getAndIncrement() == 0) {
+					throw new IOException("connection refused");
+				}
+				super.complete(workerId, result);
+			}
+		};
+		ToolWorker worker = new ToolWorker(transport, new NativeToolchainExecutor(properties), root, "a", 1,
+				Duration.ofMillis(50));
+		worker.start();
+		workers.add(worker);
+		RemoteToolchainExecutor executor = new RemoteToolchainExecutor(properties,
+				new NativeToolchainExecutor(properties), workerProperties, coordinator);
+
+		assertEquals(3, executor.run(ToolCommand.of("clang")));
+		assertEquals(2, failures.get());
+	}
+
+	@Test
+	void redirectsErrorOnWorker() throws Exception {
+		WorkerCoordinator coordinator = coordinator();
+		startWorker(coordinator, "a");
+		RemoteToolchainExecutor executor = new RemoteToolchainExecutor(properties,
+				new NativeToolchainExecutor(properties), workerProperties, coordinator);
+		Path log = root.resolve("opt.log");
+
+		executor.run(ToolCommand.of("opt", "first").setError(ProcessBuilder.Redirect.to(log.toFile())));
+		executor.run(ToolCommand.of("opt", "second").setError(ProcessBuilder.Redirect.appendTo(log.toFile())));
+
+		assertEquals("first\nsecond\n", Files.readString(log));
+	}
+
+	@Test
+	void reportsTimeoutFromWorker() throws Exception {
+		WorkerCoordinator coordinator = coordinator();
+		startWorker(coordinator, "a");
+		RemoteToolchainExecutor executor = new RemoteToolchainExecutor(properties,
+				new NativeToolchainExecutor(properties), workerProperties, coordinator);
+
+		assertThrows(ToolTimeoutException.class,
+				() -> executor.run(ToolCommand.of("llvm-slicing").setTimeout(Duration.ofMillis(200))));
+	}
+
+	@Test
+	void failsFastWithoutWorkers() {
+		RemoteToolchainExecutor executor = new RemoteToolchainExecutor(properties,
+				new NativeToolchainExecutor(properties), workerProperties, coordinator());
+
+		assertThrows(IOException.class, () -> executor.run(ToolCommand.of("clang")));
+	}
+
+	@Test
+	void stopsWaitingForStuckTask() throws Exception {
+		WorkerCoordinator coordinator = coordinator();
+		// 已注册但从不拉取任务的 worker
+		coordinator.register(new WorkerTransport.Registration("idle", new NativeToolchainExecutor(properties).version(), 1));
+		workerProperties.setResultGrace(Duration.ofMillis(100));
+		RemoteToolchainExecutor executor = new RemoteToolchainExecutor(properties,
+				new NativeToolchainExecutor(properties), workerProperties, coordinator);
+
+		assertThrows(ToolTimeoutException.class,
+				() -> executor.run(ToolCommand.of("clang").setTimeout(Duration.ofMillis(100))));
+		assertEquals(0, coordinator.queued());
+	}
+
+	@Test
+	void requeuesTasksOfLostWorker() throws Exception {
+		WorkerCoordinator coordinator = coordinator();
+		RemoteToolchainExecutor executor = new RemoteToolchainExecutor(properties,
+				new NativeToolchainExecutor(properties), workerProperties, coordinator);
+		// 领取任务后不再发送心跳的 worker
+		String lost = coordinator.register(new WorkerTransport.Registration("lost",
+				new NativeToolchainExecutor(properties).version(), 1));
+		CompletableFuture<Integer> run = CompletableFuture.supplyAsync(() -> {
+			try {
+				return executor.run(ToolCommand.of("clang"));
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		ToolTask task = coordinator.poll(lost, Duration.ofSeconds(10));
+		assertNotNull(task);
+
+		startWorker(coordinator, "a");
+		Thread.sleep(500);
+		coordinator.expireWorkers();
+
+		assertEquals(3, run.get(30, TimeUnit.SECONDS));
+		// 失联 worker 迟到的结果被忽略
+		coordinator.complete(lost, new ToolTaskResult(task.id(), 0, false, null));
+		assertEquals(List.of("a"), coordinator.workers().stream().map(WorkerCoordinator.WorkerInfo::name).toList());
+	}
+
+	@Test
+	void reportsResultWhenCancelArrivesAfterRun() throws Exception {
+		WorkerCoordinator coordinator = coordinator();
+		// 取消在工具返回之后才到达; 传输层像 HttpClient 一样在线程带着中断标志时失败
+		ToolchainExecutor cancelledLate = new NativeToolchainExecutor(properties) {
+			@Override
+			public int run(ToolCommand command) {
+				Thread.currentThread().interrupt();
+				return 0;
+			}
+		};
+		WorkerTransport transport = new InProcessTransport(coordinator) {
+			@Override
+			public void complete(String workerId, ToolTaskResult result) throws IOException, InterruptedException {
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				super.complete(workerId, result);
+			}
+		};
+		ToolWorker worker = new ToolWorker(transport, cancelledLate, root, "a", 1, Duration.ofMillis(50));
+		worker.start();
+		workers.add(worker);
+		RemoteToolchainExecutor executor = new RemoteToolchainExecutor(properties,
+				new NativeToolchainExecutor(properties), workerProperties, coordinator);
+
+		for (int i = 0; i < 3; i++) {
+			CompletableFuture<Integer> run = CompletableFuture.supplyAsync(() -> {
+				try {
+					return executor.run(ToolCommand.of("clang"));
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			assertEquals(0, run.get(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	void workerRejectsUnknownToolsAndEscapingPaths() {
+		Path workerRoot = root.resolve("worker");
+		ToolTask shell = new ToolTask("1", "sh", List.of("-c", "id"), null, null, null, 0);
+		ToolTask outside = new ToolTask("2", "clang", List.of(), "../..", null, null, 0);
+		ToolTask overwrite = new ToolTask("3", "clang", List.of(), null, "write:../x", null, 0);
+		ToolTask append = new ToolTask("4", "clang", List.of(), "work", null, "append:work/../../x", 0);
+
+		for (ToolTask task : List.of(shell, outside, overwrite, append)) {
+			assertThrows(SecurityException.class, () -> task.toCommand(workerRoot), task.id());
+		}
+		assertEquals(workerRoot.resolve("work/a.txt").toFile(),
+				new ToolTask("5", "clang", List.of(), "work", "write:work/./a.txt", null, 0)
+						.toCommand(workerRoot).getOutput().file());
+	}
+
+	@Test
+	void reportsRejectedTaskAsFailure() throws Exception {
+		WorkerCoordinator coordinator = coordinator();
+		startWorker(coordinator, "a");
+		RemoteToolchainExecutor executor = new RemoteToolchainExecutor(properties,
+				new NativeToolchainExecutor(properties), workerProperties, coordinator);
+
+		assertThrows(IOException.class, () -> executor.run(ToolCommand.of("clang").setDirectory(root.getParent())));
+	}
+
+	@Test
+	void rejectsWorkerWithDifferentToolchain() {
+		WorkerCoordinator coordinator = coordinator();
+
+		assertThrows(IllegalArgumentException.class,
+				() -> coordinator.register(new WorkerTransport.Registration("x", "DOCKER:other", 1)));
+	}
+
+	// 直接调用协调节点, 测试可覆盖其中的方法模拟传输故障
+	private static class InProcessTransport implements WorkerTransport {
+		private final WorkerCoordinator coordinator;
+
+		InProcessTransport(WorkerCoordinator coordinator) {
+			this.coordinator = coordinator;
+		}
+
+		@Override
+		public String register(Registration registration) {
+			return coordinator.register(registration);
+		}
+
+		@Override
+		public Heartbeat heartbeat(String workerId) {
+			return coordinator.heartbeat(workerId);
+		}
+
+		@Override
+		public ToolTask poll(String workerId, Duration wait) throws IOException, InterruptedException {
+			return coordinator.poll(workerId, wait);
+		}
+
+		@Override
+		public void complete(String workerId, ToolTaskResult result) throws IOException, InterruptedException {
+			coordinator.complete(workerId, result);
+		}
+	}
+}